@@ -21,6 +21,7 @@ import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.codehaus.plexus.util.StringUtils;
 import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.ProbeMode;
 
 /**
  * Base class for preparing a property pointing to the JaCoCo runtime agent that
@@ -117,6 +118,8 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 * <li>tcpserver: The agent listens for incoming connections on the TCP port
 	 * specified by the {@link #address} and {@link #port}. Execution data is
 	 * written to this TCP connection.</li>
+	 * <li>tcpmultiserver: Like tcpserver, but serves any number of concurrent
+	 * connections.</li>
 	 * <li>tcpclient: At startup the agent connects to the TCP port specified by
 	 * the {@link #address} and {@link #port}. Execution data is written to this
 	 * TCP connection.</li>
@@ -148,11 +151,55 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 	 */
 	@Parameter(property = "jacoco.classDumpDir")
 	File classDumpDir;
+	/**
+	 * A diff manifest written by the <code>diff</code> command of the command
+	 * line interface. When specified the agent only instruments the changed
+	 * classes listed in the manifest.
+	 */
+	@Parameter(property = "jacoco.diffManifest")
+	File diffManifest;
 	/**
 	 * If set to true the agent exposes functionality via JMX.
 	 */
 	@Parameter(property = "jacoco.jmx")
 	Boolean jmx;
+	/**
+	 * What the probes record. Valid options are:
+	 * <ul>
+	 * <li>boolean: Whether code has been executed (default).</li>
+	 * <li>count: How often code has been executed. Reports show the hit
+	 * counts of lines and methods.</li>
+	 * <li>mapped: Whether code has been executed, recorded in the memory
+	 * mapped {@link #probeFile} which survives a crash of the VM.</li>
+	 * </ul>
+	 */
+	@Parameter(property = "jacoco.probeMode")
+	String probeMode;
+	/**
+	 * Memory mapped probe file used with the probe mode mapped. It can be
+	 * converted to an exec file with the merge goal.
+	 */
+	@Parameter(property = "jacoco.probeFile")
+	File probeFile;
+	/**
+	 * Interval in seconds in which a snapshot of the coverage data is written
+	 * to the destination file while the VM is running. 0 disables periodic
+	 * dumps.
+	 */
+	@Parameter(property = "jacoco.dumpInterval")
+	Integer dumpInterval;
+	/**
+	 * If set to true periodic dumps are written to separate files with a
+	 * timestamp in their name instead of replacing the destination file.
+	 */
+	@Parameter(property = "jacoco.dumpRotate")
+	Boolean dumpRotate;
+	/**
+	 * Maximum number of rotated dump files kept, older files are deleted. 0
+	 * keeps all files.
+	 */
+	@Parameter(property = "jacoco.dumpMaxFiles")
+	Integer dumpMaxFiles;
 
 	@Override
 	public void executeMojo() {
@@ -225,9 +272,27 @@ public abstract class AbstractAgentMojo extends AbstractJacocoMojo {
 		if (classDumpDir != null) {
 			agentOptions.setClassDumpDir(classDumpDir.getAbsolutePath());
 		}
+		if (diffManifest != null) {
+			agentOptions.setDiffManifest(diffManifest.getAbsolutePath());
+		}
 		if (jmx != null) {
 			agentOptions.setJmx(jmx.booleanValue());
 		}
+		if (probeMode != null) {
+			agentOptions.setProbeMode(ProbeMode.parse(probeMode));
+		}
+		if (probeFile != null) {
+			agentOptions.setProbeFile(probeFile.getAbsolutePath());
+		}
+		if (dumpInterval != null) {
+			agentOptions.setDumpInterval(dumpInterval.intValue());
+		}
+		if (dumpRotate != null) {
+			agentOptions.setDumpRotate(dumpRotate.booleanValue());
+		}
+		if (dumpMaxFiles != null) {
+			agentOptions.setDumpMaxFiles(dumpMaxFiles.intValue());
+		}
 		return agentOptions;
 	}
 
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.maven;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Locale;
@@ -74,6 +75,14 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 	@Parameter
 	List<String> excludes;
 
+	/**
+	 * A diff manifest written by the <code>diff</code> command of the command
+	 * line interface. When specified only the changed classes and methods
+	 * listed in the manifest are reported.
+	 */
+	@Parameter(property = "jacoco.diffManifest")
+	File diffManifest;
+
 	/**
 	 * Flag used to suppress execution.
 	 */
@@ -176,6 +185,9 @@ public abstract class AbstractReportMojo extends AbstractMavenReport {
 		try {
 			final ReportSupport support = new ReportSupport(getLog());
 			loadExecutionData(support);
+			if (diffManifest != null) {
+				support.loadDiffManifest(diffManifest);
+			}
 			addFormatters(support, locale);
 			final IReportVisitor visitor = support.initRootVisitor();
 			createReport(visitor, support);
@@ -32,6 +32,8 @@ import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.internal.diff.DiffIndex;
+import org.jacoco.core.internal.diff.DiffManifest;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IReportGroupVisitor;
@@ -53,6 +55,8 @@ import org.jacoco.report.xml.XMLFormatter;
  * <li>Create an instance</li>
  * <li>Load one or multiple exec files with
  * <code>loadExecutionData()</code></li>
+ * <li>Optionally load a diff manifest with
+ * <code>loadDiffManifest()</code></li>
  * <li>Add one or multiple formatters with <code>addXXX()</code> methods</li>
  * <li>Create the root visitor with <code>initRootVisitor()</code></li>
  * <li>Process one or multiple projects with <code>processProject()</code></li>
@@ -63,6 +67,7 @@ final class ReportSupport {
 	private final Log log;
 	private final ExecFileLoader loader;
 	private final List<IReportVisitor> formatters;
+	private DiffIndex diffIndex;
 
 	/**
 	 * Construct a new instance with the given log output.
@@ -89,6 +94,20 @@ final class ReportSupport {
 		loader.load(execFile);
 	}
 
+	/**
+	 * Loads the given diff manifest. Subsequently processed projects only
+	 * report the changed classes and methods listed in the manifest.
+	 *
+	 * @param diffManifest
+	 *            diff manifest file to load
+	 * @throws IOException
+	 *             if the file can't be loaded
+	 */
+	public void loadDiffManifest(final File diffManifest) throws IOException {
+		log.info("Loading diff manifest " + diffManifest);
+		diffIndex = DiffManifest.read(diffManifest).createDiffIndex();
+	}
+
 	public void addXmlFormatter(final File targetfile, final String encoding)
 			throws IOException {
 		final XMLFormatter xml = new XMLFormatter();
@@ -190,13 +209,13 @@ final class ReportSupport {
 			final String bundeName, final MavenProject project,
 			final List<String> includes, final List<String> excludes,
 			final ISourceFileLocator locator) throws IOException {
-		final CoverageBuilder builder = new CoverageBuilder();
+		final CoverageBuilder builder = new CoverageBuilder(diffIndex);
 		final File classesDir = new File(
 				project.getBuild().getOutputDirectory());
 
 		if (classesDir.isDirectory()) {
 			final Analyzer analyzer = new Analyzer(
-					loader.getExecutionDataStore(), builder);
+					loader.getExecutionDataStore(), builder, diffIndex);
 			final FileFilter filter = new FileFilter(includes, excludes);
 			for (final File file : filter.getFiles(classesDir)) {
 				analyzer.analyzeAll(file);
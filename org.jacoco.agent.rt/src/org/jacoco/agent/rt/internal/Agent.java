@@ -13,6 +13,7 @@
 package org.jacoco.agent.rt.internal;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.concurrent.Callable;
@@ -20,6 +21,7 @@ import java.util.concurrent.Callable;
 import org.jacoco.agent.rt.IAgent;
 import org.jacoco.agent.rt.internal.output.FileOutput;
 import org.jacoco.agent.rt.internal.output.IAgentOutput;
+import org.jacoco.agent.rt.internal.output.NioTcpServerOutput;
 import org.jacoco.agent.rt.internal.output.NoneOutput;
 import org.jacoco.agent.rt.internal.output.TcpClientOutput;
 import org.jacoco.agent.rt.internal.output.TcpServerOutput;
@@ -28,6 +30,8 @@ import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AbstractRuntime;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.AgentOptions.OutputMode;
+import org.jacoco.core.runtime.MappedProbeFile;
+import org.jacoco.core.runtime.ProbeMode;
 import org.jacoco.core.runtime.RuntimeData;
 
 /**
@@ -89,6 +93,10 @@ public class Agent implements IAgent {
 
 	private Callable<Void> jmxRegistration;
 
+	private DumpScheduler dumpScheduler;
+
+	private MappedProbeFile probeFile;
+
 	/**
 	 * Creates a new agent with the given agent options.
 	 *
@@ -125,8 +133,17 @@ public class Agent implements IAgent {
 				sessionId = createSessionId();
 			}
 			data.setSessionId(sessionId);
+			if (options.getProbeMode() == ProbeMode.MAPPED) {
+				probeFile = MappedProbeFile.open(
+						new File(options.getProbeFile()), options.getAppend());
+				data.setProbeFile(probeFile);
+			}
 			output = createAgentOutput();
 			output.startup(options, data);
+			if (options.getDumpInterval() > 0) {
+				dumpScheduler = new DumpScheduler(options, logger);
+				dumpScheduler.startup(data);
+			}
 			if (options.getJmx()) {
 				jmxRegistration = new JmxRegistration(this);
 			}
@@ -141,10 +158,22 @@ public class Agent implements IAgent {
 	 */
 	public void shutdown() {
 		try {
-			if (options.getDumpOnExit()) {
+			boolean dumpOutput = options.getDumpOnExit();
+			if (dumpScheduler != null) {
+				dumpScheduler.shutdown(options.getDumpOnExit());
+				// The final snapshot already replaced the destination file:
+				if (isDestfileReplaced()) {
+					dumpOutput = false;
+				}
+			}
+			if (dumpOutput) {
 				output.writeExecutionData(false);
 			}
 			output.shutdown();
+			if (probeFile != null) {
+				data.sync();
+				probeFile.close();
+			}
 			if (jmxRegistration != null) {
 				jmxRegistration.call();
 			}
@@ -153,6 +182,15 @@ public class Agent implements IAgent {
 		}
 	}
 
+	/**
+	 * Checks whether the snapshots of the dump scheduler replace the file of
+	 * the file output, so all dumps to it have to go through the scheduler.
+	 */
+	private boolean isDestfileReplaced() {
+		return dumpScheduler != null && dumpScheduler.replacesDestfile()
+				&& options.getOutput() == OutputMode.file;
+	}
+
 	/**
 	 * Create output implementation as given by the agent options.
 	 *
@@ -165,6 +203,8 @@ public class Agent implements IAgent {
 			return new FileOutput();
 		case tcpserver:
 			return new TcpServerOutput(logger);
+		case tcpmultiserver:
+			return new NioTcpServerOutput(logger);
 		case tcpclient:
 			return new TcpClientOutput(logger);
 		case none:
@@ -217,7 +257,12 @@ public class Agent implements IAgent {
 	}
 
 	public void dump(final boolean reset) throws IOException {
+		if (isDestfileReplaced()) {
+			dumpScheduler.dump(reset);
+			return;
+		}
 		output.writeExecutionData(reset);
+		data.sync();
 	}
 
 }
@@ -12,15 +12,18 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.IllegalClassFormatException;
 import java.security.CodeSource;
 import java.security.ProtectionDomain;
-import java.util.List;
 
-import org.eclipse.jgit.diff.DiffEntry;
 import org.jacoco.core.instr.Instrumenter;
-import org.jacoco.core.internal.flow.GitDiff;
+import org.jacoco.core.internal.diff.CodeDiff;
+import org.jacoco.core.internal.diff.DiffConfig;
+import org.jacoco.core.internal.diff.DiffIndex;
+import org.jacoco.core.internal.diff.DiffManifest;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.IRuntime;
 import org.jacoco.core.runtime.WildcardMatcher;
@@ -55,10 +58,10 @@ public class CoverageTransformer implements ClassFileTransformer {
 
     private final boolean inclNoLocationClasses;
 
-    // for diff
-    private final String baseBranch;
-
-    private final String diffBranch;
+    /**
+     * 改动的类和方法，<code>null</code> 时插桩所有类，为空时不插桩任何类
+     */
+    private final DiffIndex diffIndex;
 
     /**
      * New transformer with the given delegates.
@@ -79,10 +82,35 @@ public class CoverageTransformer implements ClassFileTransformer {
         classFileDumper = new ClassFileDumper(options.getClassDumpDir());
         inclBootstrapClasses = options.getInclBootstrapClasses();
         inclNoLocationClasses = options.getInclNoLocationClasses();
+        diffIndex = loadDiffIndex(options);
+        instrumenter.setDiffIndex(diffIndex);
+    }
 
-        baseBranch = options.getBaseBranch();
-        diffBranch = options.getDiffBranch();
-
+    /**
+     * 加载差异信息，只在启动时执行一次：优先读取差异清单，其次按 baseBranch、diffBranch 在工作目录的仓库中计算
+     *
+     * @param options
+     * @return 差异信息，未配置时返回null；没有差异时返回空的差异信息，不插桩任何类
+     */
+    private static DiffIndex loadDiffIndex(final AgentOptions options) {
+        final String diffManifest = options.getDiffManifest();
+        if (diffManifest != null) {
+            try {
+                return DiffManifest.read(new File(diffManifest)).createDiffIndex();
+            } catch (final IOException e) {
+                throw new IllegalArgumentException("Unable to read diff manifest " + diffManifest, e);
+            }
+        }
+        if (!"".equals(options.getBaseBranch()) && !"".equals(options.getDiffBranch())) {
+            try {
+                return CodeDiff.diff(System.getProperty("user.dir"), options.getDiffBranch(),
+                        options.getBaseBranch(), new DiffConfig()).createDiffIndex();
+            } catch (final IOException e) {
+                throw new IllegalArgumentException("Unable to diff " + options.getDiffBranch()
+                        + " with " + options.getBaseBranch(), e);
+            }
+        }
+        return null;
     }
 
     public byte[] transform(final ClassLoader loader,
@@ -100,18 +128,11 @@ public class CoverageTransformer implements ClassFileTransformer {
             return null;
         }
 
-        /**
-         * 1、没有分支信息返回
-         * 2、如果不是diff的文件，返回 !classname.contains("LiveToolsController")
-         */
-/*        if ("".equals(baseBranch) || "".equals(diffBranch)) {
+        // 未改动的类不插桩，不占用探针和执行数据
+        if (diffIndex != null && !diffIndex.containsTopLevelClass(classname)) {
             return null;
         }
 
-        if (!new GitDiff(System.getProperty("user.dir")).isDiff(classname, baseBranch, diffBranch)) {
-            return null;
-        }*/
-
         try {
             classFileDumper.dump(classname, classfileBuffer);
             return instrumenter.instrument(classfileBuffer, classname);
@@ -0,0 +1,192 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.jacoco.agent.rt.internal.output.FileOutput;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
+
+/**
+ * Writes coverage snapshots through a {@link FileOutput} every
+ * <code>dumpinterval</code> seconds from a daemon thread. Snapshots are
+ * written to a temporary file which is then renamed, so a killed process loses
+ * at most one interval. Without <code>dumprotate</code> the snapshot replaces
+ * the <code>destfile</code>, otherwise each snapshot is written to a new file
+ * with a timestamp and only the latest <code>dumpmaxfiles</code> files are
+ * kept. Snapshots never reset the data, so each file contains all data
+ * collected until it has been written. While the snapshots replace the
+ * <code>destfile</code> all other dumps to it have to go through
+ * {@link #dump(boolean)}, otherwise the next snapshot would drop their data.
+ */
+class DumpScheduler {
+
+	private static final String EXEC_SUFFIX = ".exec";
+
+	private final AgentOptions options;
+
+	private final IExceptionLogger logger;
+
+	/** rotated files written so far, oldest first */
+	private final LinkedList<File> rotated = new LinkedList<File>();
+
+	private File destFile;
+
+	/**
+	 * existing content of the destfile in append mode and data of dumps with
+	 * reset, written with every snapshot before the current data
+	 */
+	private ExecFileLoader previous;
+
+	private RuntimeData data;
+
+	private Timer timer;
+
+	/**
+	 * Creates a new scheduler.
+	 *
+	 * @param options
+	 *            interval, rotation and destfile configuration
+	 * @param logger
+	 *            logger for exceptions in the background thread
+	 */
+	DumpScheduler(final AgentOptions options, final IExceptionLogger logger) {
+		this.options = options;
+		this.logger = logger;
+	}
+
+	/**
+	 * Starts the background thread. The first snapshot is written after one
+	 * interval.
+	 *
+	 * @param data
+	 *            data to write
+	 * @throws IOException
+	 *             if the existing destfile can't be read
+	 */
+	void startup(final RuntimeData data) throws IOException {
+		this.data = data;
+		// Only the snapshots write files, the destfile is left untouched here:
+		destFile = new File(options.getDestfile()).getAbsoluteFile();
+		final File folder = destFile.getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		if (!options.getDumpRotate() && options.getAppend()
+				&& destFile.length() > 0) {
+			previous = new ExecFileLoader();
+			previous.load(destFile);
+		}
+		final long interval = options.getDumpInterval() * 1000L;
+		timer = new Timer(getClass().getName(), true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					dump();
+				} catch (final Exception e) {
+					logger.logExeption(e);
+				}
+			}
+		}, interval, interval);
+	}
+
+	/**
+	 * Stops the background thread.
+	 *
+	 * @param dump
+	 *            if <code>true</code> a final snapshot is written
+	 * @throws IOException
+	 *             if the snapshot can't be written
+	 */
+	void shutdown(final boolean dump) throws IOException {
+		timer.cancel();
+		if (dump) {
+			dump();
+		}
+	}
+
+	/**
+	 * Returns whether the snapshots replace the destfile.
+	 *
+	 * @return <code>true</code> if rotation is disabled
+	 */
+	boolean replacesDestfile() {
+		return !options.getDumpRotate();
+	}
+
+	/**
+	 * Writes a snapshot. In mapped probe mode the probe file is synced as
+	 * well.
+	 *
+	 * @throws IOException
+	 *             if the snapshot can't be written
+	 */
+	void dump() throws IOException {
+		dump(false);
+	}
+
+	/**
+	 * Writes a snapshot. Data cleared by a reset is kept for all following
+	 * snapshots, like the data appended to the destfile by a regular dump.
+	 *
+	 * @param reset
+	 *            if <code>true</code> execution data is cleared afterwards
+	 * @throws IOException
+	 *             if the snapshot can't be written
+	 */
+	synchronized void dump(final boolean reset) throws IOException {
+		if (reset) {
+			if (previous == null) {
+				previous = new ExecFileLoader();
+			}
+			data.collect(previous.getExecutionDataStore(),
+					previous.getSessionInfoStore(), true);
+		}
+		data.sync();
+		if (!options.getDumpRotate()) {
+			FileOutput.writeSnapshot(data, destFile, previous);
+			return;
+		}
+		final File file = createRotatedFile();
+		FileOutput.writeSnapshot(data, file, previous);
+		// Snapshots within the same second replace the same file
+		if (rotated.isEmpty() || !rotated.getLast().equals(file)) {
+			rotated.add(file);
+		}
+		final int max = options.getDumpMaxFiles();
+		while (max > 0 && rotated.size() > max) {
+			rotated.removeFirst().delete();
+		}
+	}
+
+	private File createRotatedFile() {
+		String name = destFile.getName();
+		if (name.endsWith(EXEC_SUFFIX)) {
+			name = name.substring(0, name.length() - EXEC_SUFFIX.length());
+		}
+		final String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss")
+				.format(new Date());
+		return new File(destFile.getParentFile(),
+				name + "-" + timestamp + EXEC_SUFFIX);
+	}
+
+}
@@ -76,6 +76,7 @@ public final class PreMain {
         final Agent agent = Agent.getInstance(agentOptions);
 
         final IRuntime runtime = createRuntime(inst);
+        runtime.setProbeMode(agentOptions.getProbeMode());
 
         runtime.startup(agent.getData());
 
@@ -98,6 +99,7 @@ public final class PreMain {
         final Agent agent = Agent.getInstance(agentOptions);
 
         final IRuntime runtime = createRuntime(instrumentation);
+        runtime.setProbeMode(agentOptions.getProbeMode());
 
         runtime.startup(agent.getData());
 
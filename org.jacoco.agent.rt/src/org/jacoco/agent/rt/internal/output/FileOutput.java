@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.agent.rt.internal.output;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -20,6 +21,7 @@ import java.io.OutputStream;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.RuntimeData;
+import org.jacoco.core.tools.ExecFileLoader;
 
 /**
  * Local only agent output that will write coverage data to the filesystem. This
@@ -60,6 +62,59 @@ public class FileOutput implements IAgentOutput {
 		}
 	}
 
+	/**
+	 * Writes a snapshot of the current execution data to the given file. The
+	 * data is first written to a temporary file in the same folder which then
+	 * replaces the given file, so readers never see partially written content.
+	 *
+	 * @param data
+	 *            current execution data
+	 * @param file
+	 *            file to create or replace
+	 * @param previous
+	 *            execution data written before the current data or
+	 *            <code>null</code>
+	 * @throws IOException
+	 *             in case the file can't be written
+	 */
+	public static void writeSnapshot(final RuntimeData data, final File file,
+			final ExecFileLoader previous) throws IOException {
+		final File temp = File.createTempFile(file.getName(), ".tmp",
+				file.getParentFile());
+		try {
+			final OutputStream output = new BufferedOutputStream(
+					new FileOutputStream(temp));
+			try {
+				final ExecutionDataWriter writer = new ExecutionDataWriter(
+						output);
+				if (previous != null) {
+					previous.getSessionInfoStore().accept(writer);
+					previous.getExecutionDataStore().accept(writer);
+				}
+				data.collect(writer, writer, false);
+			} finally {
+				output.close();
+			}
+			rename(temp, file);
+		} finally {
+			// Only exists if something went wrong:
+			temp.delete();
+		}
+	}
+
+	private static void rename(final File source, final File target)
+			throws IOException {
+		if (source.renameTo(target)) {
+			return;
+		}
+		// Some platforms can't rename onto an existing file:
+		target.delete();
+		if (!source.renameTo(target)) {
+			throw new IOException(
+					String.format("Can't rename %s to %s.", source, target));
+		}
+	}
+
 	public void shutdown() throws IOException {
 		// Nothing to do
 	}
@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IncompatibleExecDataVersionException;
+import org.jacoco.core.runtime.RemoteControlWriter;
+
+/**
+ * Single client connection of {@link NioTcpServerOutput}. Commands are parsed
+ * without blocking and responses are queued and sent in order. Only accessed
+ * by the selector thread.
+ */
+class NioConnection {
+
+	/**
+	 * Number of pending responses at which no more commands are read, so a
+	 * slow client only backs up its own responses.
+	 */
+	static final int MAX_PENDING_RESPONSES = 8;
+
+	/** length of the header block: block type, magic number and version */
+	private static final int HEADER_LENGTH = 5;
+
+	private static final int DUMP_COMMAND_LENGTH = 3;
+
+	private static final int DELTA_DUMP_COMMAND_LENGTH = 10;
+
+	private final SocketChannel channel;
+
+	private final ByteBuffer in = ByteBuffer.allocate(256);
+
+	private final LinkedList<ByteBuffer> out = new LinkedList<ByteBuffer>();
+
+	private boolean initialized;
+
+	private boolean compressionRequested;
+
+	/**
+	 * Creates a new connection and queues the header block.
+	 *
+	 * @param channel
+	 *            accepted non-blocking channel
+	 * @param header
+	 *            header block sent to the client first
+	 */
+	NioConnection(final SocketChannel channel, final byte[] header) {
+		this.channel = channel;
+		this.initialized = false;
+		send(header);
+	}
+
+	/**
+	 * Returns whether the header block of the client has been received.
+	 * Pushed dumps are only sent to initialized connections.
+	 *
+	 * @return <code>true</code> if the header has been received
+	 */
+	boolean isInitialized() {
+		return initialized;
+	}
+
+	/**
+	 * Returns whether a command of this client has requested compression.
+	 * Dumps pushed to this connection are compressed as well afterwards.
+	 *
+	 * @return <code>true</code> if the client supports compressed responses
+	 */
+	boolean isCompressionRequested() {
+		return compressionRequested;
+	}
+
+	/**
+	 * Reads the available data and parses all complete commands.
+	 *
+	 * @param requests
+	 *            list the parsed commands are added to
+	 * @return <code>false</code> if the client has closed the connection
+	 * @throws IOException
+	 *             if the data can't be read or is invalid
+	 */
+	boolean read(final List<Request> requests) throws IOException {
+		if (channel.read(in) == -1) {
+			return false;
+		}
+		in.flip();
+		try {
+			while (parse(requests)) {
+			}
+		} finally {
+			in.compact();
+		}
+		return true;
+	}
+
+	private boolean parse(final List<Request> requests) throws IOException {
+		if (!initialized) {
+			if (in.remaining() < HEADER_LENGTH) {
+				return false;
+			}
+			if (in.get() != ExecutionDataWriter.BLOCK_HEADER
+					|| in.getChar() != ExecutionDataWriter.MAGIC_NUMBER) {
+				throw new IOException("Invalid execution data file.");
+			}
+			final char version = in.getChar();
+			if (version != ExecutionDataWriter.FORMAT_VERSION) {
+				throw new IncompatibleExecDataVersionException(version);
+			}
+			initialized = true;
+			return true;
+		}
+		if (!in.hasRemaining()) {
+			return false;
+		}
+		final byte blocktype = in.get(in.position());
+		switch (blocktype) {
+		case RemoteControlWriter.BLOCK_CMDDUMP:
+			if (in.remaining() < DUMP_COMMAND_LENGTH) {
+				return false;
+			}
+			in.get();
+			final boolean dump = readFlags() != 0;
+			final boolean reset = in.get() != 0;
+			requests.add(Request.dump(this, dump, reset));
+			return true;
+		case RemoteControlWriter.BLOCK_CMDDELTADUMP:
+			if (in.remaining() < DELTA_DUMP_COMMAND_LENGTH) {
+				return false;
+			}
+			in.get();
+			final long baseline = in.getLong();
+			final boolean deltaReset = readFlags() != 0;
+			requests.add(Request.deltaDump(this, baseline, deltaReset));
+			return true;
+		default:
+			throw new IOException(String.format("Unknown block type %x.",
+					Byte.valueOf(blocktype)));
+		}
+	}
+
+	/**
+	 * Reads a boolean value of a command which may carry the compression
+	 * flag and returns the value without the flag.
+	 */
+	private int readFlags() {
+		final int flags = in.get();
+		if ((flags & RemoteControlWriter.FLAG_COMPRESSION) != 0) {
+			compressionRequested = true;
+		}
+		return flags & ~RemoteControlWriter.FLAG_COMPRESSION;
+	}
+
+	/**
+	 * Queues a response. The same array may be shared by several
+	 * connections.
+	 *
+	 * @param response
+	 *            complete response
+	 */
+	void send(final byte[] response) {
+		out.add(ByteBuffer.wrap(response));
+	}
+
+	/**
+	 * Sends as much of the queued responses as possible.
+	 *
+	 * @return <code>true</code> if all responses have been sent
+	 * @throws IOException
+	 *             if the data can't be written
+	 */
+	boolean flush() throws IOException {
+		while (!out.isEmpty()) {
+			final ByteBuffer buffer = out.getFirst();
+			channel.write(buffer);
+			if (buffer.hasRemaining()) {
+				return false;
+			}
+			out.removeFirst();
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether there are responses which have not been sent yet.
+	 *
+	 * @return <code>true</code> if responses are pending
+	 */
+	boolean hasPendingOutput() {
+		return !out.isEmpty();
+	}
+
+	/**
+	 * Returns the operations the selector should wait for.
+	 *
+	 * @return interest set for the selection key
+	 */
+	int getInterestOps() {
+		int ops = 0;
+		if (out.size() < MAX_PENDING_RESPONSES) {
+			ops |= SelectionKey.OP_READ;
+		}
+		if (!out.isEmpty()) {
+			ops |= SelectionKey.OP_WRITE;
+		}
+		return ops;
+	}
+
+	void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Dump or delta dump command received from a client.
+	 */
+	static class Request {
+
+		final NioConnection connection;
+
+		final boolean delta;
+
+		final boolean dump;
+
+		final boolean reset;
+
+		final long baseline;
+
+		private Request(final NioConnection connection, final boolean delta,
+				final boolean dump, final boolean reset, final long baseline) {
+			this.connection = connection;
+			this.delta = delta;
+			this.dump = dump;
+			this.reset = reset;
+			this.baseline = baseline;
+		}
+
+		static Request dump(final NioConnection connection, final boolean dump,
+				final boolean reset) {
+			return new Request(connection, false, dump, reset, 0);
+		}
+
+		static Request deltaDump(final NioConnection connection,
+				final long baseline, final boolean reset) {
+			return new Request(connection, true, true, reset, baseline);
+		}
+
+	}
+
+}
@@ -0,0 +1,478 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.agent.rt.internal.output;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.jacoco.agent.rt.internal.IExceptionLogger;
+import org.jacoco.agent.rt.internal.output.NioConnection.Request;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.AgentOptions;
+import org.jacoco.core.runtime.IDeltaInfoVisitor;
+import org.jacoco.core.runtime.RemoteControlWriter;
+import org.jacoco.core.runtime.RuntimeData;
+
+/**
+ * Output that opens a TCP server socket served by a NIO selector. Several
+ * clients are served at the same time with the same protocol as
+ * {@link TcpServerOutput}. Dump commands received within one select round are
+ * collected only once and the same response is sent to all requesters. A
+ * slow client only backs up its own responses. Clients which have requested
+ * compression receive compressed responses, each collected response is
+ * serialized at most once per format. This controller uses the following
+ * agent options:
+ * <ul>
+ * <li>address</li>
+ * <li>port</li>
+ * </ul>
+ */
+public class NioTcpServerOutput implements IAgentOutput {
+
+	/** maximum number of pending connections */
+	private static final int BACKLOG = 50;
+
+	/** milliseconds to wait for pending responses on shutdown */
+	private static final long FLUSH_TIMEOUT = 5000;
+
+	private final IExceptionLogger logger;
+
+	/** responses pushed to all clients by other threads (dumponexit, JMX) */
+	private final Queue<Response> broadcasts = new ConcurrentLinkedQueue<Response>();
+
+	private RuntimeData data;
+
+	private Selector selector;
+
+	private ServerSocketChannel serverChannel;
+
+	private byte[] header;
+
+	private volatile boolean running;
+
+	/** number of clients which have sent their header block */
+	private volatile int clients;
+
+	private Thread worker;
+
+	/**
+	 * New controller instance.
+	 *
+	 * @param logger
+	 *            logger to use in case of exceptions in the selector thread
+	 */
+	public NioTcpServerOutput(final IExceptionLogger logger) {
+		this.logger = logger;
+	}
+
+	public void startup(final AgentOptions options, final RuntimeData data)
+			throws IOException {
+		this.data = data;
+		this.header = createHeader();
+		selector = Selector.open();
+		serverChannel = createServerChannel(options);
+		serverChannel.configureBlocking(false);
+		serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+		running = true;
+		worker = new Thread(new Runnable() {
+			public void run() {
+				try {
+					serve();
+				} catch (final ClosedSelectorException e) {
+					// closed while shutting down
+				} catch (final IOException e) {
+					logger.logExeption(e);
+				}
+			}
+		});
+		worker.setName(getClass().getName());
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	public void shutdown() throws Exception {
+		running = false;
+		selector.wakeup();
+		worker.join();
+	}
+
+	public void writeExecutionData(final boolean reset) throws IOException {
+		if (clients > 0) {
+			broadcasts.add(collect(reset));
+			selector.wakeup();
+		}
+	}
+
+	private void serve() throws IOException {
+		try {
+			final List<Request> requests = new ArrayList<Request>();
+			while (running) {
+				selector.select();
+				final Iterator<SelectionKey> i = selector.selectedKeys()
+						.iterator();
+				while (i.hasNext()) {
+					final SelectionKey key = i.next();
+					i.remove();
+					handle(key, requests);
+				}
+				if (!requests.isEmpty()) {
+					respond(requests);
+					requests.clear();
+				}
+				sendBroadcasts();
+				updateInterestOps();
+			}
+			serverChannel.close();
+			sendBroadcasts();
+			flushAll();
+		} finally {
+			for (final SelectionKey key : selector.keys()) {
+				key.channel().close();
+			}
+			selector.close();
+		}
+	}
+
+	private void handle(final SelectionKey key, final List<Request> requests) {
+		if (!key.isValid()) {
+			return;
+		}
+		if (key.isAcceptable()) {
+			accept();
+			return;
+		}
+		final NioConnection connection = (NioConnection) key.attachment();
+		try {
+			if (key.isReadable()) {
+				final boolean initialized = connection.isInitialized();
+				if (!connection.read(requests)) {
+					close(key);
+					return;
+				}
+				if (!initialized && connection.isInitialized()) {
+					clients++;
+				}
+			}
+			if (key.isWritable()) {
+				connection.flush();
+			}
+		} catch (final IOException e) {
+			// A broken client must not affect the others
+			removeRequests(requests, connection);
+			close(key);
+		}
+	}
+
+	private void accept() {
+		try {
+			final SocketChannel channel = serverChannel.accept();
+			if (channel != null) {
+				channel.configureBlocking(false);
+				channel.register(selector,
+						SelectionKey.OP_READ | SelectionKey.OP_WRITE,
+						new NioConnection(channel, header));
+			}
+		} catch (final IOException e) {
+			logger.logExeption(e);
+		}
+	}
+
+	/**
+	 * Answers all commands of this round. Delta dumps share a single snapshot
+	 * and sequence, the delta is calculated once per distinct baseline. Full
+	 * dumps are collected once. If any command requests a reset, a single
+	 * reset is executed after all data has been collected.
+	 */
+	private void respond(final List<Request> requests) throws IOException {
+		boolean reset = false;
+		boolean dump = false;
+		final Map<Long, Response> deltas = new LinkedHashMap<Long, Response>();
+		for (final Request r : requests) {
+			reset |= r.reset;
+			if (r.delta) {
+				final Long baseline = Long.valueOf(r.baseline);
+				if (!deltas.containsKey(baseline)) {
+					deltas.put(baseline, new Response());
+				}
+			} else {
+				dump |= r.dump;
+			}
+		}
+		if (!deltas.isEmpty()) {
+			collectDeltas(deltas);
+		}
+		final Response full;
+		if (dump) {
+			full = collect(reset);
+		} else {
+			full = null;
+			if (reset) {
+				data.reset();
+			}
+		}
+		final byte[] ok = createCmdOk();
+		for (final Request r : requests) {
+			final boolean compression = r.connection.isCompressionRequested();
+			if (r.delta) {
+				r.connection.send(deltas.get(Long.valueOf(r.baseline))
+						.get(compression));
+			} else {
+				r.connection.send(r.dump ? full.get(compression) : ok);
+			}
+		}
+	}
+
+	private void sendBroadcasts() throws IOException {
+		Response response;
+		while ((response = broadcasts.poll()) != null) {
+			for (final SelectionKey key : selector.keys()) {
+				if (key.isValid() && key.attachment() != null) {
+					final NioConnection connection = (NioConnection) key
+							.attachment();
+					if (connection.isInitialized()) {
+						connection.send(response
+								.get(connection.isCompressionRequested()));
+					}
+				}
+			}
+		}
+	}
+
+	private void updateInterestOps() {
+		for (final SelectionKey key : selector.keys()) {
+			if (key.isValid() && key.attachment() != null) {
+				key.interestOps(
+						((NioConnection) key.attachment()).getInterestOps());
+			}
+		}
+	}
+
+	/**
+	 * Tries to send the pending responses (e.g. dumponexit) before the
+	 * connections are closed, waits at most {@link #FLUSH_TIMEOUT}.
+	 */
+	private void flushAll() throws IOException {
+		final long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT;
+		while (true) {
+			boolean pending = false;
+			for (final SelectionKey key : selector.keys()) {
+				if (key.isValid()) {
+					final NioConnection connection = (NioConnection) key
+							.attachment();
+					if (connection.hasPendingOutput()) {
+						key.interestOps(SelectionKey.OP_WRITE);
+						pending = true;
+					} else {
+						key.interestOps(0);
+					}
+				}
+			}
+			final long remaining = deadline - System.currentTimeMillis();
+			if (!pending || remaining <= 0) {
+				return;
+			}
+			selector.select(remaining);
+			final Iterator<SelectionKey> i = selector.selectedKeys().iterator();
+			while (i.hasNext()) {
+				final SelectionKey key = i.next();
+				i.remove();
+				try {
+					((NioConnection) key.attachment()).flush();
+				} catch (final IOException e) {
+					close(key);
+				}
+			}
+		}
+	}
+
+	private void close(final SelectionKey key) {
+		final NioConnection connection = (NioConnection) key.attachment();
+		if (connection.isInitialized()) {
+			clients--;
+		}
+		key.cancel();
+		try {
+			connection.close();
+		} catch (final IOException e) {
+			logger.logExeption(e);
+		}
+	}
+
+	private static void removeRequests(final List<Request> requests,
+			final NioConnection connection) {
+		final Iterator<Request> i = requests.iterator();
+		while (i.hasNext()) {
+			if (i.next().connection == connection) {
+				i.remove();
+			}
+		}
+	}
+
+	private Response collect(final boolean reset) {
+		final Response response = new Response();
+		data.collect(response.executionData, response.sessionInfos, reset);
+		return response;
+	}
+
+	private void collectDeltas(final Map<Long, Response> deltas)
+			throws IOException {
+		final int size = deltas.size();
+		final long[] baselines = new long[size];
+		final IDeltaInfoVisitor[] deltaInfos = new IDeltaInfoVisitor[size];
+		final IExecutionDataVisitor[] executionData = new IExecutionDataVisitor[size];
+		final ISessionInfoVisitor[] sessionInfos = new ISessionInfoVisitor[size];
+		int i = 0;
+		for (final Map.Entry<Long, Response> entry : deltas.entrySet()) {
+			final Response response = entry.getValue();
+			baselines[i] = entry.getKey().longValue();
+			deltaInfos[i] = response;
+			executionData[i] = response.executionData;
+			sessionInfos[i] = response.sessionInfos;
+			i++;
+		}
+		data.collectDelta(baselines, deltaInfos, executionData, sessionInfos,
+				false);
+	}
+
+	private static byte[] createCmdOk() throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		createWriter(buffer).sendCmdOk();
+		return buffer.toByteArray();
+	}
+
+	private static byte[] createHeader() throws IOException {
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		new RemoteControlWriter(buffer);
+		return buffer.toByteArray();
+	}
+
+	/**
+	 * Creates a writer for response blocks only, the header block is sent
+	 * once per connection.
+	 */
+	private static RemoteControlWriter createWriter(
+			final ByteArrayOutputStream buffer) throws IOException {
+		final RemoteControlWriter writer = new RemoteControlWriter(buffer);
+		buffer.reset();
+		return writer;
+	}
+
+	/**
+	 * Collected data of a response, serialized on first use per format.
+	 */
+	private static class Response implements IDeltaInfoVisitor {
+
+		final SessionInfoStore sessionInfos = new SessionInfoStore();
+
+		final ExecutionDataStore executionData = new ExecutionDataStore();
+
+		private boolean delta;
+
+		private long sequence;
+
+		private boolean full;
+
+		private byte[] plain;
+
+		private byte[] compressed;
+
+		public void visitDeltaInfo(final long sequence, final boolean full) {
+			this.delta = true;
+			this.sequence = sequence;
+			this.full = full;
+		}
+
+		byte[] get(final boolean compression) throws IOException {
+			if (compression) {
+				if (compressed == null) {
+					compressed = serialize(true);
+				}
+				return compressed;
+			}
+			if (plain == null) {
+				plain = serialize(false);
+			}
+			return plain;
+		}
+
+		private byte[] serialize(final boolean compression)
+				throws IOException {
+			final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			final RemoteControlWriter writer = createWriter(buffer);
+			writer.setCompression(compression);
+			if (delta) {
+				writer.visitDeltaInfo(sequence, full);
+			}
+			sessionInfos.accept(writer);
+			executionData.accept(writer);
+			writer.sendCmdOk();
+			return buffer.toByteArray();
+		}
+
+	}
+
+	/**
+	 * Open a server channel based on the given configuration.
+	 *
+	 * @param options
+	 *            address and port configuration
+	 * @return opened and bound server channel
+	 * @throws IOException
+	 *             if the channel can't be bound
+	 */
+	protected ServerSocketChannel createServerChannel(
+			final AgentOptions options) throws IOException {
+		final ServerSocketChannel channel = ServerSocketChannel.open();
+		final InetAddress inetAddr = getInetAddress(options.getAddress());
+		channel.socket().bind(
+				new InetSocketAddress(inetAddr, options.getPort()), BACKLOG);
+		return channel;
+	}
+
+	/**
+	 * Returns the {@link InetAddress} object to open the server channel on.
+	 *
+	 * @param address
+	 *            address specified as a string
+	 * @return address to open the server channel
+	 * @throws UnknownHostException
+	 *             if the address can't be resolved
+	 */
+	protected InetAddress getInetAddress(final String address)
+			throws UnknownHostException {
+		if ("*".equals(address)) {
+			return null;
+		} else {
+			return InetAddress.getByName(address);
+		}
+	}
+
+}
@@ -16,7 +16,7 @@ import java.io.IOException;
 import java.net.Socket;
 import java.net.SocketException;
 
-import org.jacoco.core.runtime.IRemoteCommandVisitor;
+import org.jacoco.core.runtime.IRemoteDeltaCommandVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 import org.jacoco.core.runtime.RuntimeData;
@@ -24,7 +24,7 @@ import org.jacoco.core.runtime.RuntimeData;
 /**
  * Handler for a single socket based remote connection.
  */
-class TcpConnection implements IRemoteCommandVisitor {
+class TcpConnection implements IRemoteDeltaCommandVisitor {
 
 	private final RuntimeData data;
 
@@ -72,13 +72,19 @@ class TcpConnection implements IRemoteCommandVisitor {
 
 	/**
 	 * Dumps the current execution data if the connection is already initialized
-	 * and the underlying socket is still open.
+	 * and the underlying socket is still open. Responses to remote commands and
+	 * dumps triggered by other threads are serialized on this connection, so
+	 * their blocks never interleave on the socket. As the
+	 * {@link RemoteControlWriter} is not thread safe every response, from
+	 * setting the compression to the command confirmation, must be written
+	 * while holding this lock.
 	 *
 	 * @param reset
 	 *            if <code>true</code> execution data is cleared afterwards
 	 * @throws IOException
 	 */
-	public void writeExecutionData(final boolean reset) throws IOException {
+	public synchronized void writeExecutionData(final boolean reset)
+			throws IOException {
 		if (initialized && !socket.isClosed()) {
 			visitDumpCommand(true, reset);
 		}
@@ -95,10 +101,11 @@ class TcpConnection implements IRemoteCommandVisitor {
 		}
 	}
 
-	// === IRemoteCommandVisitor ===
+	// === IRemoteDeltaCommandVisitor ===
 
-	public void visitDumpCommand(final boolean dump, final boolean reset)
-			throws IOException {
+	public synchronized void visitDumpCommand(final boolean dump,
+			final boolean reset) throws IOException {
+		writer.setCompression(reader.isCompressionRequested());
 		if (dump) {
 			data.collect(writer, writer, reset);
 		} else {
@@ -109,4 +116,11 @@ class TcpConnection implements IRemoteCommandVisitor {
 		writer.sendCmdOk();
 	}
 
+	public synchronized void visitDeltaDumpCommand(final long baseline,
+			final boolean reset) throws IOException {
+		writer.setCompression(reader.isCompressionRequested());
+		data.collectDelta(baseline, writer, writer, writer, reset);
+		writer.sendCmdOk();
+	}
+
 }
@@ -20,6 +20,7 @@ import org.apache.tools.ant.Task;
 import org.jacoco.agent.AgentJar;
 import org.jacoco.core.runtime.AgentOptions;
 import org.jacoco.core.runtime.AgentOptions.OutputMode;
+import org.jacoco.core.runtime.ProbeMode;
 
 /**
  * Base class for all coverage tasks that require agent options
@@ -201,6 +202,70 @@ public class AbstractCoverageTask extends Task {
 		agentOptions.setClassDumpDir(dir.getAbsolutePath());
 	}
 
+	/**
+	 * Sets the diff manifest that limits instrumentation to changed classes.
+	 *
+	 * @param file
+	 *            diff manifest written by the <code>diff</code> command
+	 */
+	public void setDiffmanifest(final File file) {
+		agentOptions.setDiffManifest(file.getAbsolutePath());
+	}
+
+	/**
+	 * Sets what the probes record, <code>boolean</code> (default),
+	 * <code>count</code> or <code>mapped</code>.
+	 *
+	 * @param mode
+	 *            probe mode
+	 */
+	public void setProbemode(final String mode) {
+		agentOptions.setProbeMode(ProbeMode.parse(mode));
+	}
+
+	/**
+	 * Sets the memory mapped probe file used with the probe mode
+	 * <code>mapped</code>.
+	 *
+	 * @param file
+	 *            probe file
+	 */
+	public void setProbefile(final File file) {
+		agentOptions.setProbeFile(file.getAbsolutePath());
+	}
+
+	/**
+	 * Sets the interval in seconds of periodic dumps, <code>0</code> (default)
+	 * disables them.
+	 *
+	 * @param interval
+	 *            interval in seconds
+	 */
+	public void setDumpinterval(final int interval) {
+		agentOptions.setDumpInterval(interval);
+	}
+
+	/**
+	 * Sets whether periodic dumps are written to separate files.
+	 *
+	 * @param rotate
+	 *            <code>true</code> to create a new file for every dump
+	 */
+	public void setDumprotate(final boolean rotate) {
+		agentOptions.setDumpRotate(rotate);
+	}
+
+	/**
+	 * Sets the maximum number of rotated dump files kept, <code>0</code>
+	 * (default) keeps all files.
+	 *
+	 * @param maxFiles
+	 *            maximum number of files
+	 */
+	public void setDumpmaxfiles(final int maxFiles) {
+		agentOptions.setDumpMaxFiles(maxFiles);
+	}
+
 	/**
 	 * Sets whether the agent should expose functionality via JMX.
 	 *
@@ -39,6 +39,8 @@ import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.internal.diff.DiffIndex;
+import org.jacoco.core.internal.diff.DiffManifest;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.FileMultiReportOutput;
 import org.jacoco.report.IMultiReportOutput;
@@ -420,10 +422,26 @@ public class ReportTask extends Task {
 
 	private ExecutionDataStore executionDataStore;
 
+	private File diffmanifest;
+
+	private DiffIndex diffIndex;
+
 	private final GroupElement structure = new GroupElement();
 
 	private final List<FormatterElement> formatters = new ArrayList<FormatterElement>();
 
+	/**
+	 * Sets a diff manifest written by the <code>diff</code> command of the
+	 * command line interface. When specified only the changed classes and
+	 * methods listed in the manifest are reported.
+	 *
+	 * @param diffmanifest
+	 *            diff manifest file
+	 */
+	public void setDiffmanifest(final File diffmanifest) {
+		this.diffmanifest = diffmanifest;
+	}
+
 	/**
 	 * Returns the nested resource collection for execution data files.
 	 *
@@ -489,6 +507,7 @@ public class ReportTask extends Task {
 	@Override
 	public void execute() throws BuildException {
 		loadExecutionData();
+		loadDiffManifest();
 		try {
 			final IReportVisitor visitor = createVisitor();
 			visitor.visitInfo(sessionInfoStore.getInfos(),
@@ -527,6 +546,20 @@ public class ReportTask extends Task {
 		executionDataStore = loader.getExecutionDataStore();
 	}
 
+	private void loadDiffManifest() {
+		if (diffmanifest == null) {
+			return;
+		}
+		log(format("Loading diff manifest %s", diffmanifest));
+		try {
+			diffIndex = DiffManifest.read(diffmanifest).createDiffIndex();
+		} catch (final IOException e) {
+			throw new BuildException(
+					format("Unable to read diff manifest %s", diffmanifest), e,
+					getLocation());
+		}
+	}
+
 	private IReportVisitor createVisitor() throws IOException {
 		final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
 		for (final FormatterElement f : formatters) {
@@ -562,8 +595,9 @@ public class ReportTask extends Task {
 
 	private IBundleCoverage createBundle(final GroupElement group)
 			throws IOException {
-		final CoverageBuilder builder = new CoverageBuilder();
-		final Analyzer analyzer = new Analyzer(executionDataStore, builder);
+		final CoverageBuilder builder = new CoverageBuilder(diffIndex);
+		final Analyzer analyzer = new Analyzer(executionDataStore, builder,
+				diffIndex);
 		for (final Iterator<?> i = group.classfiles.iterator(); i.hasNext();) {
 			final Resource resource = (Resource) i.next();
 			if (resource.isDirectory() && resource instanceof FileResource) {
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.cli.internal.commands;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.jacoco.cli.internal.Command;
+import org.jacoco.core.internal.diff.CodeDiff;
+import org.jacoco.core.internal.diff.DiffConfig;
+import org.jacoco.core.internal.diff.DiffManifest;
+import org.jacoco.core.internal.diff.GitAdapter;
+import org.kohsuke.args4j.Option;
+
+/**
+ * The <code>diff</code> command. Writes the changes between two revisions to
+ * a diff manifest which the agent and the <code>instrument</code> and
+ * <code>report</code> commands read with <code>--diffmanifest</code>.
+ */
+public class Diff extends Command {
+
+	@Option(name = "--gitpath", usage = "gitpath of project to diff", metaVar = "<gitpath>", required = true)
+	String gitpath;
+
+	@Option(name = "--newbranchname", usage = "new revision (branch, tag or commit)", metaVar = "<newbranchname>", required = true)
+	String newbranchname;
+
+	@Option(name = "--oldbranchname", usage = "old revision (branch, tag or commit)", metaVar = "<oldbranchname>", required = true)
+	String oldbranchname;
+
+	@Option(name = "--mergebase", usage = "compare newbranchname with its merge base on oldbranchname (three-dot diff)")
+	boolean mergebase;
+
+	@Option(name = "--norenames", usage = "do not detect renamed and copied files")
+	boolean norenames;
+
+	@Option(name = "--renamelimit", usage = "maximum number of files considered for rename detection, 0 for no limit (default 400)", metaVar = "<n>")
+	int renamelimit = 400;
+
+	@Option(name = "--renamescore", usage = "minimum similarity in percent for a file to be considered renamed (default 60)", metaVar = "<n>")
+	int renamescore = 60;
+
+	@Option(name = "--gitusername", usage = "gitusername of project to diff", metaVar = "<gitusername>")
+	String gitusername;
+
+	@Option(name = "--gitpsw", usage = "gitpsw of project to diff", metaVar = "<gitpsw>")
+	String gitpsw;
+
+	@Option(name = "--destfile", usage = "file to write the diff manifest to", metaVar = "<path>", required = true)
+	File destfile;
+
+	@Override
+	public String description() {
+		return "Write the changed classes and methods between two revisions to a diff manifest.";
+	}
+
+	@Override
+	public int execute(final PrintWriter out, final PrintWriter err)
+			throws IOException {
+		if (gitusername != null && gitpsw != null) {
+			GitAdapter.setCredentialsProvider(gitusername, gitpsw);
+		}
+		final DiffConfig config = new DiffConfig();
+		config.setMergeBase(mergebase);
+		config.setDetectRenames(!norenames);
+		config.setRenameLimit(renamelimit);
+		config.setRenameScore(renamescore);
+		out.printf("[INFO] Comparing %s with %s in %s.%n", newbranchname,
+				oldbranchname, gitpath);
+		final DiffManifest manifest = CodeDiff.diff(gitpath, newbranchname,
+				oldbranchname, config);
+		out.printf("[INFO] %s changed classes between %s and %s.%n",
+				Integer.valueOf(manifest.getClassInfos().size()),
+				manifest.getOldCommit(), manifest.getNewCommit());
+		out.printf("[INFO] Writing diff manifest to %s.%n",
+				destfile.getAbsolutePath());
+		manifest.write(destfile);
+		return 0;
+	}
+
+}
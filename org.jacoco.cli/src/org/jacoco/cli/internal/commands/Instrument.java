@@ -25,6 +25,7 @@ import java.util.List;
 
 import org.jacoco.cli.internal.Command;
 import org.jacoco.core.instr.Instrumenter;
+import org.jacoco.core.internal.diff.DiffManifest;
 import org.jacoco.core.runtime.OfflineInstrumentationAccessGenerator;
 import org.kohsuke.args4j.Argument;
 import org.kohsuke.args4j.Option;
@@ -40,6 +41,9 @@ public class Instrument extends Command {
 	@Argument(usage = "list of folder or files to instrument recusively", metaVar = "<sourcefiles>")
 	List<File> source = new ArrayList<File>();
 
+	@Option(name = "--diffmanifest", usage = "diff manifest written by the diff command, only changed methods are instrumented", metaVar = "<file>")
+	File diffmanifest;
+
 	private Instrumenter instrumenter;
 
 	@Override
@@ -53,6 +57,12 @@ public class Instrument extends Command {
 		final File absoluteDest = dest.getAbsoluteFile();
 		instrumenter = new Instrumenter(
 				new OfflineInstrumentationAccessGenerator());
+		if (diffmanifest != null) {
+			out.printf("[INFO] Loading diff manifest %s.%n",
+					diffmanifest.getAbsolutePath());
+			instrumenter.setDiffIndex(
+					DiffManifest.read(diffmanifest).createDiffIndex());
+		}
 		int total = 0;
 		for (final File s : source) {
 			if (s.isFile()) {
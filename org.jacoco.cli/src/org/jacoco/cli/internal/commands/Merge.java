@@ -28,7 +28,7 @@ import org.kohsuke.args4j.Option;
  */
 public class Merge extends Command {
 
-	@Argument(usage = "list of JaCoCo *.exec files to read", metaVar = "<execfiles>")
+	@Argument(usage = "list of JaCoCo *.exec or probe files to read", metaVar = "<execfiles>")
 	List<File> execfiles = new ArrayList<File>();
 
 	@Option(name = "--destfile", usage = "file to write merged execution data to", metaVar = "<path>", required = true)
@@ -27,6 +27,8 @@ import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
 import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.internal.diff.DiffConfig;
+import org.jacoco.core.internal.diff.DiffManifest;
 import org.jacoco.core.internal.diff.GitAdapter;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.DirectorySourceFileLocator;
@@ -88,6 +90,21 @@ public class Report extends Command {
     @Option(name = "--oldbranchname", usage = "oldbranchname of project for this diff report", metaVar = "<oldbranchname>")
     String oldbranchname;
 
+    @Option(name = "--mergebase", usage = "compare newbranchname with its merge base on oldbranchname (three-dot diff)")
+    boolean mergebase;
+
+    @Option(name = "--norenames", usage = "do not detect renamed and copied files")
+    boolean norenames;
+
+    @Option(name = "--renamelimit", usage = "maximum number of files considered for rename detection, 0 for no limit (default 400)", metaVar = "<n>")
+    int renamelimit = 400;
+
+    @Option(name = "--renamescore", usage = "minimum similarity in percent for a file to be considered renamed (default 60)", metaVar = "<n>")
+    int renamescore = 60;
+
+    @Option(name = "--diffmanifest", usage = "diff manifest written by the diff command, used instead of the git options", metaVar = "<file>")
+    File diffmanifest;
+
     @Override
     public String description() {
         return "Generate reports in different formats by reading exec and Java class files.";
@@ -120,14 +137,23 @@ public class Report extends Command {
     private IBundleCoverage analyze(final ExecutionDataStore data,
                                     final PrintWriter out) throws IOException {
         CoverageBuilder builder;
-        if (isDiff()) {
+        if (diffmanifest != null) {
+            out.printf("[INFO] Loading diff manifest %s.%n",
+                    diffmanifest.getAbsolutePath());
+            builder = new CoverageBuilder(DiffManifest.read(diffmanifest).createDiffIndex());
+        } else if (isDiff()) {
             GitAdapter.setCredentialsProvider(gitusername, gitpsw);
-            builder = new CoverageBuilder(gitpath, newbranchname, oldbranchname);
+            DiffConfig config = new DiffConfig();
+            config.setMergeBase(mergebase);
+            config.setDetectRenames(!norenames);
+            config.setRenameLimit(renamelimit);
+            config.setRenameScore(renamescore);
+            builder = new CoverageBuilder(gitpath, newbranchname, oldbranchname, config);
         } else {
             builder = new CoverageBuilder();
         }
 
-        final Analyzer analyzer = new Analyzer(data, builder);
+        final Analyzer analyzer = new Analyzer(data, builder, builder.getDiffIndex());
         for (final File f : classfiles) {
             analyzer.analyzeAll(f);
         }
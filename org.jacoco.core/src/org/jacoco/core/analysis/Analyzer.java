@@ -16,6 +16,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
@@ -30,6 +32,8 @@ import org.jacoco.core.internal.analysis.ClassAnalyzer;
 import org.jacoco.core.internal.analysis.ClassCoverageImpl;
 import org.jacoco.core.internal.analysis.StringPool;
 import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.diff.ChangedClasses;
+import org.jacoco.core.internal.diff.DiffIndex;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
 import org.jacoco.core.internal.flow.GitDiff;
 import org.jacoco.core.internal.instr.InstrSupport;
@@ -47,12 +51,16 @@ import org.objectweb.asm.Opcodes;
  */
 public class Analyzer {
 
+    private static final String TARGET_CLASSES = "/target/classes/";
+
     private final ExecutionDataStore executionData;
 
     private final ICoverageVisitor coverageVisitor;
 
     private final StringPool stringPool;
 
+    private final DiffIndex diffIndex;
+
     /**
      * Creates a new analyzer reporting to the given output.
      *
@@ -62,9 +70,24 @@ public class Analyzer {
      */
     public Analyzer(final ExecutionDataStore executionData,
                     final ICoverageVisitor coverageVisitor) {
+        this(executionData, coverageVisitor, null);
+    }
+
+    /**
+     * 增量分析，只统计差异中的方法
+     *
+     * @param executionData   execution data
+     * @param coverageVisitor the output instance that will coverage data for every analyzed
+     *                        class
+     * @param diffIndex       差异，如 {@link CoverageBuilder#getDiffIndex()}，为null时全量分析
+     */
+    public Analyzer(final ExecutionDataStore executionData,
+                    final ICoverageVisitor coverageVisitor,
+                    final DiffIndex diffIndex) {
         this.executionData = executionData;
         this.coverageVisitor = coverageVisitor;
         this.stringPool = new StringPool();
+        this.diffIndex = diffIndex;
     }
 
     /**
@@ -78,23 +101,35 @@ public class Analyzer {
                                                 final String className) {
         final ExecutionData data = executionData.get(classid);
         final boolean[] probes;
+        final long[] counts;
         final boolean noMatch;
         if (data == null) {
             probes = null;
+            counts = null;
             noMatch = executionData.contains(className);
         } else {
             probes = data.getProbes();
+            counts = data.getCounts();
             noMatch = false;
         }
         final ClassCoverageImpl coverage = new ClassCoverageImpl(className, classid, noMatch);
-        final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes, stringPool) {
+        final ClassAnalyzer analyzer = new ClassAnalyzer(coverage, probes, counts, stringPool) {
+            @Override
+            public void visitSource(final String source, final String debug) {
+                super.visitSource(source, debug);
+                // 方法的行在 visitSource 之后才统计，此时设置改动的行即可统计改动行的覆盖率
+                if (diffIndex != null && source != null) {
+                    coverage.setDiffLines(diffIndex.getDiffLines(coverage.getPackageName(), source));
+                }
+            }
+
             @Override
             public void visitEnd() {
                 super.visitEnd();
                 coverageVisitor.visitCoverage(coverage);
             }
         };
-        return new ClassProbesAdapter(analyzer, false);
+        return new ClassProbesAdapter(analyzer, false, diffIndex);
     }
 
     private void analyzeClass(final byte[] source) {
@@ -213,48 +248,57 @@ public class Analyzer {
     }
 
     /**
-     * Analyzes all class files contained in the given file or folder with branch
+     * Analyzes all class files contained in the given file or folder with branch.
+     * The diff between the branches is resolved only once per project, every
+     * class file is then checked against the set of changed classes before it
+     * is read.
      *
      * @param file
      * @param baseBranch
      * @param diffBranch
-     * @return
+     * @return number of class files found
      * @throws IOException
      */
     public int analyzeAll(final File file, String baseBranch, String diffBranch) throws IOException {
+        return analyzeAll(file, baseBranch, diffBranch, new HashMap<String, ChangedClasses>());
+    }
 
+    private int analyzeAll(final File file, final String baseBranch, final String diffBranch,
+                           final Map<String, ChangedClasses> changedClassesByProject) throws IOException {
         int count = 0;
         if (file.isDirectory()) {
             for (final File f : file.listFiles()) {
-                count += analyzeAll(f, baseBranch, diffBranch);
+                count += analyzeAll(f, baseBranch, diffBranch, changedClassesByProject);
             }
-        } else {
-
-            // 只分析被改动过的文件
-            if (file.getAbsolutePath().endsWith(".class")) {
-                String absolutePath = file.getAbsolutePath();
-                int index1 = absolutePath.indexOf("/target/classes/");
-                int index2 = absolutePath.substring(0, index1).lastIndexOf("/") + 1;
-
-                String relativePath = absolutePath.substring(index2);
-                String classNamePlus = relativePath.replace(".class", ".java");
+            return count;
+        }
 
-                if (classNamePlus.contains("/target/classes/")) {
-                    int index = classNamePlus.indexOf("/target/classes/", 0) + 16;
-                    String mockClassName = classNamePlus.substring(index);
-                    if (new GitDiff(absolutePath.substring(0, index2 - 1)).isDiff(mockClassName, baseBranch, diffBranch)) {
+        // 只分析被改动过的文件
+        final String absolutePath = file.getAbsolutePath();
+        if (!absolutePath.endsWith(".class")) {
+            return count;
+        }
+        final int classesIndex = absolutePath.indexOf(TARGET_CLASSES);
+        if (classesIndex == -1) {
+            return count;
+        }
+        final String projectPath = absolutePath.substring(0, absolutePath.lastIndexOf('/', classesIndex - 1));
+        ChangedClasses changedClasses = changedClassesByProject.get(projectPath);
+        if (changedClasses == null) {
+            changedClasses = new GitDiff(projectPath).getChangedClasses(baseBranch, diffBranch);
+            changedClassesByProject.put(projectPath, changedClasses);
+        }
 
-                        final InputStream in = new FileInputStream(file);
-                        try {
-                            count += analyzeAll(in, file.getPath());
-                        } finally {
-                            in.close();
-                        }
-                    }
-                }
+        final String className = absolutePath.substring(classesIndex + TARGET_CLASSES.length(),
+                absolutePath.length() - ".class".length());
+        if (changedClasses.containsClass(className)) {
+            final InputStream in = new FileInputStream(file);
+            try {
+                count += analyzeAll(in, file.getPath());
+            } finally {
+                in.close();
             }
         }
-
         return count;
     }
 
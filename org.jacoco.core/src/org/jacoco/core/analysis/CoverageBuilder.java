@@ -16,8 +16,9 @@ import java.util.*;
 
 import org.jacoco.core.internal.analysis.BundleCoverageImpl;
 import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
-import org.jacoco.core.internal.diff.ClassInfo;
 import org.jacoco.core.internal.diff.CodeDiff;
+import org.jacoco.core.internal.diff.DiffConfig;
+import org.jacoco.core.internal.diff.DiffIndex;
 
 /**
  * Builder for hierarchical {@link ICoverageNode} structures from single
@@ -39,14 +40,26 @@ public class CoverageBuilder implements ICoverageVisitor {
 
     private final Map<String, ISourceFileCoverage> sourcefiles;
 
-    public static List<ClassInfo> classInfos;
+    /**
+     * 本次分析的差异，全量分析时为null
+     */
+    private final DiffIndex diffIndex;
 
     /**
      * Create a new builder.
      */
     public CoverageBuilder() {
+        this((DiffIndex) null);
+    }
+
+    /**
+     * 使用已计算好的差异
+     * @param diffIndex			差异，为null时全量分析
+     */
+    public CoverageBuilder(DiffIndex diffIndex) {
         this.classes = new HashMap<>();
         this.sourcefiles = new HashMap<>();
+        this.diffIndex = diffIndex == null || diffIndex.isEmpty() ? null : diffIndex;
     }
 
     /**
@@ -56,11 +69,18 @@ public class CoverageBuilder implements ICoverageVisitor {
      * @param oldBranchName		对比分支名称
      */
     public CoverageBuilder(String gitPath, String newBranchName, String oldBranchName) {
-        this.classes = new HashMap<>();
-        this.sourcefiles = new HashMap<>();
-        if (classInfos == null || classInfos.isEmpty()){
-            classInfos = CodeDiff.diffBranchToBranch(gitPath, newBranchName, oldBranchName);
-        }
+        this(gitPath, newBranchName, oldBranchName, new DiffConfig());
+    }
+
+    /**
+     * 分支之间比较
+     * @param gitPath			本地git路径
+     * @param newBranchName		新分支名称
+     * @param oldBranchName		对比分支名称
+     * @param config			差异计算配置
+     */
+    public CoverageBuilder(String gitPath, String newBranchName, String oldBranchName, DiffConfig config) {
+        this(new DiffIndex(CodeDiff.diffBranchToBranch(gitPath, newBranchName, oldBranchName, config)));
     }
 
     /**
@@ -69,11 +89,15 @@ public class CoverageBuilder implements ICoverageVisitor {
      * @param branchName	新分支名称
      */
     public CoverageBuilder(String gitPath, String branchName) {
-        this.classes = new HashMap<>();
-        this.sourcefiles = new HashMap<>();
-        if (classInfos == null || classInfos.isEmpty()){
-            classInfos = CodeDiff.diffBranchToMaster(gitPath, branchName);
-        }
+        this(new DiffIndex(CodeDiff.diffBranchToMaster(gitPath, branchName)));
+    }
+
+    /**
+     * 本次分析的差异，需要传给 {@link Analyzer}
+     * @return 差异，全量分析时为null
+     */
+    public DiffIndex getDiffIndex() {
+        return diffIndex;
     }
 
     /**
@@ -144,6 +168,9 @@ public class CoverageBuilder implements ICoverageVisitor {
         SourceFileCoverageImpl sourcefile = (SourceFileCoverageImpl) sourcefiles.get(key);
         if (sourcefile == null) {
             sourcefile = new SourceFileCoverageImpl(filename, packagename);
+            if (diffIndex != null) {
+                sourcefile.setDiffLines(diffIndex.getDiffLines(packagename, filename));
+            }
             sourcefiles.put(key, sourcefile);
         }
         return sourcefile;
@@ -43,6 +43,15 @@ public class CoverageNodeImpl implements ICoverageNode {
 	/** Counter for classes. */
 	protected CounterImpl classCounter;
 
+	/** Counter for instructions on changed lines. */
+	protected CounterImpl diffInstructionCounter;
+
+	/** Counter for branches on changed lines. */
+	protected CounterImpl diffBranchCounter;
+
+	/** Counter for changed lines. */
+	protected CounterImpl diffLineCounter;
+
 	/**
 	 * Creates a new coverage data node.
 	 *
@@ -60,6 +69,9 @@ public class CoverageNodeImpl implements ICoverageNode {
 		this.methodCounter = CounterImpl.COUNTER_0_0;
 		this.classCounter = CounterImpl.COUNTER_0_0;
 		this.lineCounter = CounterImpl.COUNTER_0_0;
+		this.diffInstructionCounter = CounterImpl.COUNTER_0_0;
+		this.diffBranchCounter = CounterImpl.COUNTER_0_0;
+		this.diffLineCounter = CounterImpl.COUNTER_0_0;
 	}
 
 	/**
@@ -77,6 +89,12 @@ public class CoverageNodeImpl implements ICoverageNode {
 				.increment(child.getComplexityCounter());
 		methodCounter = methodCounter.increment(child.getMethodCounter());
 		classCounter = classCounter.increment(child.getClassCounter());
+		diffInstructionCounter = diffInstructionCounter
+				.increment(child.getDiffInstructionCounter());
+		diffBranchCounter = diffBranchCounter
+				.increment(child.getDiffBranchCounter());
+		diffLineCounter = diffLineCounter
+				.increment(child.getDiffLineCounter());
 	}
 
 	/**
@@ -126,6 +144,18 @@ public class CoverageNodeImpl implements ICoverageNode {
 		return classCounter;
 	}
 
+	public ICounter getDiffInstructionCounter() {
+		return diffInstructionCounter;
+	}
+
+	public ICounter getDiffBranchCounter() {
+		return diffBranchCounter;
+	}
+
+	public ICounter getDiffLineCounter() {
+		return diffLineCounter;
+	}
+
 	public ICounter getCounter(final CounterEntity entity) {
 		switch (entity) {
 		case INSTRUCTION:
@@ -156,6 +186,10 @@ public class CoverageNodeImpl implements ICoverageNode {
 		copy.complexityCounter = CounterImpl.getInstance(complexityCounter);
 		copy.methodCounter = CounterImpl.getInstance(methodCounter);
 		copy.classCounter = CounterImpl.getInstance(classCounter);
+		copy.diffInstructionCounter = CounterImpl
+				.getInstance(diffInstructionCounter);
+		copy.diffBranchCounter = CounterImpl.getInstance(diffBranchCounter);
+		copy.diffLineCounter = CounterImpl.getInstance(diffLineCounter);
 		return copy;
 	}
 
@@ -123,6 +123,30 @@ public interface ICoverageNode {
 	 */
 	ICounter getClassCounter();
 
+	/**
+	 * Returns the counter for instructions on lines changed in a diff run.
+	 * Always empty if this is not a diff run.
+	 *
+	 * @return counter for instructions on changed lines
+	 */
+	ICounter getDiffInstructionCounter();
+
+	/**
+	 * Returns the counter for branches on lines changed in a diff run. Always
+	 * empty if this is not a diff run.
+	 *
+	 * @return counter for branches on changed lines
+	 */
+	ICounter getDiffBranchCounter();
+
+	/**
+	 * Returns the counter for lines changed in a diff run. Only changed lines
+	 * containing code are counted. Always empty if this is not a diff run.
+	 *
+	 * @return counter for changed lines
+	 */
+	ICounter getDiffLineCounter();
+
 	/**
 	 * Generic access to the the counters.
 	 *
@@ -32,4 +32,13 @@ public interface IMethodCoverage extends ISourceNode {
 	 */
 	String getSignature();
 
+	/**
+	 * Returns how often the method has been executed, which is the hit count
+	 * of its first instruction. Hit counts are only available for execution
+	 * data recorded with counting probes.
+	 *
+	 * @return number of executions or -1 if unknown
+	 */
+	long getHits();
+
 }
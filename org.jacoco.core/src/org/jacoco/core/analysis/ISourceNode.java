@@ -46,4 +46,15 @@ public interface ISourceNode extends ICoverageNode {
 	 */
 	ILine getLine(int nr);
 
+	/**
+	 * Returns how often the given line has been executed, which is the maximum
+	 * hit count of its instructions. Hit counts are only available for
+	 * execution data recorded with counting probes.
+	 *
+	 * @param nr
+	 *            line number of interest
+	 * @return number of executions or -1 if unknown
+	 */
+	long getLineHits(int nr);
+
 }
@@ -20,6 +20,10 @@ import java.util.Arrays;
  * Execution data for a single Java class. While instances are immutable care
  * has to be taken about the probe data array of type <code>boolean[]</code>
  * which can be modified.
+ *
+ * Execution data recorded with hit-count probes holds a <code>long[]</code>
+ * array with the number of executions of every probe instead, see
+ * {@link #getCounts()}.
  */
 public final class ExecutionData {
 
@@ -27,8 +31,12 @@ public final class ExecutionData {
 
 	private final String name;
 
+	/** probe flags, <code>null</code> if hit counts are recorded */
 	private final boolean[] probes;
 
+	/** probe hit counts, <code>null</code> if only probe flags are recorded */
+	private final long[] counts;
+
 	/**
 	 * Creates a new {@link ExecutionData} object with the given probe data.
 	 *
@@ -44,6 +52,26 @@ public final class ExecutionData {
 		this.id = id;
 		this.name = name;
 		this.probes = probes;
+		this.counts = null;
+	}
+
+	/**
+	 * Creates a new {@link ExecutionData} object with the given probe hit
+	 * counts.
+	 *
+	 * @param id
+	 *            class identifier
+	 * @param name
+	 *            VM name
+	 * @param counts
+	 *            number of executions of every probe
+	 */
+	public ExecutionData(final long id, final String name,
+			final long[] counts) {
+		this.id = id;
+		this.name = name;
+		this.probes = null;
+		this.counts = counts;
 	}
 
 	/**
@@ -62,6 +90,7 @@ public final class ExecutionData {
 		this.id = id;
 		this.name = name;
 		this.probes = new boolean[probeCount];
+		this.counts = null;
 	}
 
 	/**
@@ -85,19 +114,43 @@ public final class ExecutionData {
 
 	/**
 	 * Returns the execution data probes. A value of <code>true</code> indicates
-	 * that the corresponding probe was executed.
+	 * that the corresponding probe was executed. For execution data with hit
+	 * counts a new array is derived from the counts, modifications of this
+	 * array are not reflected in this object.
 	 *
 	 * @return probe data
 	 */
 	public boolean[] getProbes() {
-		return probes;
+		if (counts == null) {
+			return probes;
+		}
+		final boolean[] executed = new boolean[counts.length];
+		for (int i = 0; i < counts.length; i++) {
+			executed[i] = counts[i] != 0;
+		}
+		return executed;
+	}
+
+	/**
+	 * Returns the number of executions of every probe if this execution data
+	 * has been recorded with hit-count probes.
+	 *
+	 * @return probe hit counts or <code>null</code> if only probe flags are
+	 *         available
+	 */
+	public long[] getCounts() {
+		return counts;
 	}
 
 	/**
 	 * Sets all probes to <code>false</code>.
 	 */
 	public void reset() {
-		Arrays.fill(probes, false);
+		if (counts == null) {
+			Arrays.fill(probes, false);
+		} else {
+			Arrays.fill(counts, 0L);
+		}
 	}
 
 	/**
@@ -106,6 +159,14 @@ public final class ExecutionData {
 	 * @return <code>true</code>, if at least one probe has been hit
 	 */
 	public boolean hasHits() {
+		if (counts != null) {
+			for (final long c : counts) {
+				if (c != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
 		for (final boolean p : probes) {
 			if (p) {
 				return true;
@@ -151,6 +212,10 @@ public final class ExecutionData {
 	 *
 	 * The probe array of the other object is not modified.
 	 *
+	 * If this object has hit counts, merging adds the counts of the other
+	 * object (a probe only known as executed counts once) and subtraction
+	 * clears the counts of all probes executed in the other object.
+	 *
 	 * @param other
 	 *            execution data to merge
 	 * @param flag
@@ -158,13 +223,30 @@ public final class ExecutionData {
 	 */
 	public void merge(final ExecutionData other, final boolean flag) {
 		assertCompatibility(other.getId(), other.getName(),
-				other.getProbes().length);
-		final boolean[] otherData = other.getProbes();
-		for (int i = 0; i < probes.length; i++) {
-			if (otherData[i]) {
-				probes[i] = flag;
+				other.getProbeCount());
+		if (counts == null) {
+			final boolean[] otherData = other.getProbes();
+			for (int i = 0; i < probes.length; i++) {
+				if (otherData[i]) {
+					probes[i] = flag;
+				}
 			}
+			return;
 		}
+		final long[] otherCounts = other.getCounts();
+		final boolean[] otherData = otherCounts == null ? other.getProbes()
+				: null;
+		for (int i = 0; i < counts.length; i++) {
+			final long c = otherCounts == null ? (otherData[i] ? 1 : 0)
+					: otherCounts[i];
+			if (c != 0) {
+				counts[i] = flag ? counts[i] + c : 0;
+			}
+		}
+	}
+
+	private int getProbeCount() {
+		return counts == null ? probes.length : counts.length;
 	}
 
 	/**
@@ -193,7 +275,7 @@ public final class ExecutionData {
 					format("Different class names %s and %s for id %016x.",
 							this.name, name, Long.valueOf(id)));
 		}
-		if (this.probes.length != probecount) {
+		if (getProbeCount() != probecount) {
 			throw new IllegalStateException(format(
 					"Incompatible execution data for class %s with id %016x.",
 					name, Long.valueOf(id)));
@@ -115,6 +115,9 @@ public class ExecutionDataReader {
 		case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
 			readExecutionData();
 			return true;
+		case ExecutionDataWriter.BLOCK_EXECUTIONDATA_COUNTS:
+			readExecutionDataCounts();
+			return true;
 		default:
 			throw new IOException(
 					format("Unknown block type %x.", Byte.valueOf(blocktype)));
@@ -152,4 +155,15 @@ public class ExecutionDataReader {
 				.visitClassExecution(new ExecutionData(id, name, probes));
 	}
 
+	private void readExecutionDataCounts() throws IOException {
+		if (executionDataVisitor == null) {
+			throw new IOException("No execution data visitor.");
+		}
+		final long id = in.readLong();
+		final String name = in.readUTF();
+		final long[] counts = in.readVarLongArray();
+		executionDataVisitor
+				.visitClassExecution(new ExecutionData(id, name, counts));
+	}
+
 }
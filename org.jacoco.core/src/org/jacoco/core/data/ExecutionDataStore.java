@@ -12,13 +12,12 @@
  *******************************************************************************/
 package org.jacoco.core.data;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
+import org.jacoco.core.internal.data.ExecutionDataMap;
+
 /**
  * In-memory data store for execution data. The data can be added through its
  * {@link IExecutionDataVisitor} interface. If execution data is provided
@@ -29,14 +28,16 @@ import java.util.Set;
  */
 public final class ExecutionDataStore implements IExecutionDataVisitor {
 
-	private final Map<Long, ExecutionData> entries = new HashMap<Long, ExecutionData>();
+	private final ExecutionDataMap entries = new ExecutionDataMap();
 
 	private final Set<String> names = new HashSet<String>();
 
 	/**
 	 * Adds the given {@link ExecutionData} object into the store. If there is
 	 * already execution data with this same class id, this structure is merged
-	 * with the given one.
+	 * with the given one. If only the given data has hit counts, the stored
+	 * entry is replaced with a copy of the given data merged with the previous
+	 * entry, so that the hit counts are kept.
 	 *
 	 * @param data
 	 *            execution data to add or merge
@@ -46,11 +47,15 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @see ExecutionData#assertCompatibility(long, String, int)
 	 */
 	public void put(final ExecutionData data) throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ExecutionData entry = entries.get(id);
+		final ExecutionData entry = entries.get(data.getId());
 		if (entry == null) {
-			entries.put(id, data);
+			entries.put(data);
 			names.add(data.getName());
+		} else if (entry.getCounts() == null && data.getCounts() != null) {
+			final ExecutionData counts = new ExecutionData(data.getId(),
+					data.getName(), data.getCounts().clone());
+			counts.merge(entry);
+			entries.put(counts);
 		} else {
 			entry.merge(data);
 		}
@@ -71,8 +76,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 */
 	public void subtract(final ExecutionData data)
 			throws IllegalStateException {
-		final Long id = Long.valueOf(data.getId());
-		final ExecutionData entry = entries.get(id);
+		final ExecutionData entry = entries.get(data.getId());
 		if (entry != null) {
 			entry.merge(data, false);
 		}
@@ -100,7 +104,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @return execution data or <code>null</code>
 	 */
 	public ExecutionData get(final long id) {
-		return entries.get(Long.valueOf(id));
+		return entries.get(id);
 	}
 
 	/**
@@ -130,10 +134,10 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 */
 	public ExecutionData get(final Long id, final String name,
 			final int probecount) {
-		ExecutionData entry = entries.get(id);
+		ExecutionData entry = entries.get(id.longValue());
 		if (entry == null) {
 			entry = new ExecutionData(id.longValue(), name, probecount);
-			entries.put(id, entry);
+			entries.put(entry);
 			names.add(name);
 		} else {
 			entry.assertCompatibility(id.longValue(), name, probecount);
@@ -146,7 +150,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * execution data objects itself are not removed.
 	 */
 	public void reset() {
-		for (final ExecutionData executionData : this.entries.values()) {
+		for (final ExecutionData executionData : entries.values()) {
 			executionData.reset();
 		}
 	}
@@ -157,7 +161,7 @@ public final class ExecutionDataStore implements IExecutionDataVisitor {
 	 * @return current contents
 	 */
 	public Collection<ExecutionData> getContents() {
-		return new ArrayList<ExecutionData>(entries.values());
+		return entries.values();
 	}
 
 	/**
@@ -46,6 +46,9 @@ public class ExecutionDataWriter
 	/** Block identifier for execution data of a single class. */
 	public static final byte BLOCK_EXECUTIONDATA = 0x11;
 
+	/** Block identifier for execution data of a single class with hit counts. */
+	public static final byte BLOCK_EXECUTIONDATA_COUNTS = 0x12;
+
 	/** Underlying data output */
 	protected final CompactDataOutput out;
 
@@ -100,10 +103,16 @@ public class ExecutionDataWriter
 	public void visitClassExecution(final ExecutionData data) {
 		if (data.hasHits()) {
 			try {
-				out.writeByte(BLOCK_EXECUTIONDATA);
+				final long[] counts = data.getCounts();
+				out.writeByte(counts == null ? BLOCK_EXECUTIONDATA
+						: BLOCK_EXECUTIONDATA_COUNTS);
 				out.writeLong(data.getId());
 				out.writeUTF(data.getName());
-				out.writeBooleanArray(data.getProbes());
+				if (counts == null) {
+					out.writeBooleanArray(data.getProbes());
+				} else {
+					out.writeVarLongArray(counts);
+				}
 			} catch (final IOException e) {
 				throw new RuntimeException(e);
 			}
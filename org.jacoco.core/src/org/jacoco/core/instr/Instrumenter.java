@@ -27,6 +27,7 @@ import org.jacoco.core.internal.ContentTypeDetector;
 import org.jacoco.core.internal.InputStreams;
 import org.jacoco.core.internal.Pack200Streams;
 import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.diff.DiffIndex;
 import org.jacoco.core.internal.flow.ClassProbesAdapter;
 import org.jacoco.core.internal.instr.ClassInstrumenter;
 import org.jacoco.core.internal.instr.IProbeArrayStrategy;
@@ -47,6 +48,8 @@ public class Instrumenter {
 
 	private final SignatureRemover signatureRemover;
 
+	private DiffIndex diffIndex;
+
 	/**
 	 * Creates a new instance based on the given runtime.
 	 *
@@ -58,6 +61,20 @@ public class Instrumenter {
 		this.signatureRemover = new SignatureRemover();
 	}
 
+	/**
+	 * Restricts probe insertion to the changed methods of the given diff.
+	 * Other methods are emitted unchanged. Probe ids are allocated for all
+	 * methods, so the execution data can be analyzed with the original class
+	 * files with or without diff.
+	 *
+	 * @param diffIndex
+	 *            changed methods, <code>null</code> or empty to instrument all
+	 *            methods
+	 */
+	public void setDiffIndex(final DiffIndex diffIndex) {
+		this.diffIndex = diffIndex;
+	}
+
 	/**
 	 * Determines whether signatures should be removed from JAR files. This is
 	 * typically necessary as instrumentation modifies the class files and
@@ -85,8 +102,9 @@ public class Instrumenter {
 				.createFor(classId, reader, accessorGenerator);
 		final int version = InstrSupport.getMajorVersion(reader);
 		final ClassVisitor visitor = new ClassProbesAdapter(
-				new ClassInstrumenter(strategy, writer),
-				InstrSupport.needsFrames(version));
+				new ClassInstrumenter(strategy,
+						accessorGenerator.getProbeMode(), writer),
+				InstrSupport.needsFrames(version), diffIndex);
 		reader.accept(visitor, ClassReader.EXPAND_FRAMES);
 		return writer.toByteArray();
 	}
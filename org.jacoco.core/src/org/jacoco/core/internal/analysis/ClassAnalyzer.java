@@ -35,6 +35,7 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 	private final ClassCoverageImpl coverage;
 	private final boolean[] probes;
+	private final long[] counts;
 	private final StringPool stringPool;
 
 	private final Set<String> classAnnotations = new HashSet<String>();
@@ -57,8 +58,29 @@ public class ClassAnalyzer extends ClassProbesVisitor
 	 */
 	public ClassAnalyzer(final ClassCoverageImpl coverage,
 			final boolean[] probes, final StringPool stringPool) {
+		this(coverage, probes, null, stringPool);
+	}
+
+	/**
+	 * Creates a new analyzer that builds coverage data and hit counts for a
+	 * class.
+	 *
+	 * @param coverage
+	 *            coverage node for the analyzed class data
+	 * @param probes
+	 *            execution data for this class or <code>null</code>
+	 * @param counts
+	 *            probe hit counts for this class or <code>null</code> if the
+	 *            class has not been recorded with counting probes
+	 * @param stringPool
+	 *            shared pool to minimize the number of {@link String} instances
+	 */
+	public ClassAnalyzer(final ClassCoverageImpl coverage,
+			final boolean[] probes, final long[] counts,
+			final StringPool stringPool) {
 		this.coverage = coverage;
 		this.probes = probes;
+		this.counts = counts;
 		this.stringPool = stringPool;
 		this.filter = Filters.all();
 	}
@@ -97,7 +119,8 @@ public class ClassAnalyzer extends ClassProbesVisitor
 
 		InstrSupport.assertNotInstrumented(name, coverage.getName());
 
-		final InstructionsBuilder builder = new InstructionsBuilder(probes);
+		final InstructionsBuilder builder = new InstructionsBuilder(probes,
+				counts);
 
 		return new MethodAnalyzer(builder) {
 
@@ -115,12 +138,16 @@ public class ClassAnalyzer extends ClassProbesVisitor
 			final String signature, final InstructionsBuilder icc,
 			final MethodNode methodNode) {
 		final MethodCoverageCalculator mcc = new MethodCoverageCalculator(
-				icc.getInstructions());
+				icc.getInstructions(), counts != null);
 		filter.filter(methodNode, this, mcc);
 
 		final MethodCoverageImpl mc = new MethodCoverageImpl(name, desc,
 				signature);
+		mc.setDiffLines(coverage.getDiffLines());
 		mcc.calculate(mc);
+		if (counts != null) {
+			mc.setHits(mcc.getHits(methodNode.instructions.getFirst()));
+		}
 
 		if (mc.containsCode()) {
 			// Only consider methods that actually contain code
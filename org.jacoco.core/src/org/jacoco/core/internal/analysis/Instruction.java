@@ -65,6 +65,8 @@ public class Instruction {
 
 	private int predecessorBranch;
 
+	private long hits;
+
 	/**
 	 * New instruction at the given line.
 	 *
@@ -98,6 +100,9 @@ public class Instruction {
 		if (!target.coveredBranches.isEmpty()) {
 			propagateExecutedBranch(this, branch);
 		}
+		if (target.hits > 0) {
+			propagateHits(this, target.hits);
+		}
 	}
 
 	/**
@@ -120,6 +125,27 @@ public class Instruction {
 		}
 	}
 
+	/**
+	 * Adds a branch to this instruction which execution status and hit count
+	 * is directly derived from a counting probe. In case the branch is covered
+	 * the status and the hits are propagated also to the predecessors of this
+	 * instruction.
+	 *
+	 * Note: This method is not idempotent and must be called exactly once for
+	 * every branch.
+	 *
+	 * @param hits
+	 *            number of executions of the corresponding probe
+	 * @param branch
+	 *            branch identifier unique for this instruction
+	 */
+	public void addBranch(final long hits, final int branch) {
+		addBranch(hits > 0, branch);
+		if (hits > 0) {
+			propagateHits(this, hits);
+		}
+	}
+
 	private static void propagateExecutedBranch(Instruction insn, int branch) {
 		// No recursion here, as there can be very long chains of instructions
 		while (insn != null) {
@@ -133,6 +159,17 @@ public class Instruction {
 		}
 	}
 
+	private static void propagateHits(Instruction insn, final long hits) {
+		// Every execution of an instruction leaves through one of its
+		// branches, so all predecessors are executed as often as the sum of
+		// their branches. Unlike the covered status this is not idempotent and
+		// therefore always walks the whole chain.
+		while (insn != null) {
+			insn.hits += hits;
+			insn = insn.predecessor;
+		}
+	}
+
 	/**
 	 * Returns the source line this instruction belongs to.
 	 *
@@ -155,6 +192,7 @@ public class Instruction {
 		result.branches = this.branches;
 		result.coveredBranches.or(this.coveredBranches);
 		result.coveredBranches.or(other.coveredBranches);
+		result.hits = this.hits + other.hits;
 		return result;
 	}
 
@@ -177,9 +215,21 @@ public class Instruction {
 				result.coveredBranches.set(idx++);
 			}
 		}
+		result.hits = this.hits;
 		return result;
 	}
 
+	/**
+	 * Returns how often this instruction has been executed. Only meaningful if
+	 * the branches have been added from counting probes, otherwise this is
+	 * always 0.
+	 *
+	 * @return number of executions of this instruction
+	 */
+	public long getHits() {
+		return hits;
+	}
+
 	/**
 	 * Returns the instruction coverage counter of this instruction. It is
 	 * always 1 instruction which is covered or not.
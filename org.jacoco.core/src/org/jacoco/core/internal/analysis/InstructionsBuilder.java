@@ -33,6 +33,13 @@ class InstructionsBuilder {
 	/** Probe array of the class the analyzed method belongs to. */
 	private final boolean[] probes;
 
+	/**
+	 * Probe hit counts of the class the analyzed method belongs to, or
+	 * <code>null</code> if the class has not been recorded with counting
+	 * probes.
+	 */
+	private final long[] counts;
+
 	/** The line which belong to subsequently added instructions. */
 	private int currentLine;
 
@@ -67,7 +74,23 @@ class InstructionsBuilder {
 	 *            coverage status of every instruction.
 	 */
 	InstructionsBuilder(final boolean[] probes) {
+		this(probes, null);
+	}
+
+	/**
+	 * Creates a new builder instance which can be used to analyze a single
+	 * method.
+	 *
+	 * @param probes
+	 *            probe array of the corresponding class used to determine the
+	 *            coverage status of every instruction.
+	 * @param counts
+	 *            probe hit counts of the corresponding class used to determine
+	 *            the hit count of every instruction or <code>null</code>
+	 */
+	InstructionsBuilder(final boolean[] probes, final long[] counts) {
 		this.probes = probes;
+		this.counts = counts;
 		this.currentLine = ISourceNode.UNKNOWN_LINE;
 		this.currentInsn = null;
 		this.instructions = new HashMap<AbstractInsnNode, Instruction>();
@@ -146,6 +169,10 @@ class InstructionsBuilder {
 	 *            unique branch number for the last instruction
 	 */
 	void addProbe(final int probeId, final int branch) {
+		if (counts != null) {
+			currentInsn.addBranch(counts[probeId], branch);
+			return;
+		}
 		final boolean executed = probes != null && probes[probeId];
 		currentInsn.addBranch(executed, branch);
 	}
@@ -50,9 +50,19 @@ class MethodCoverageCalculator implements IFilterOutput {
 
 	private final Map<AbstractInsnNode, Set<AbstractInsnNode>> replacements;
 
+	/** whether the hit counts of the instructions are known */
+	private final boolean withHits;
+
 	MethodCoverageCalculator(
 			final Map<AbstractInsnNode, Instruction> instructions) {
+		this(instructions, false);
+	}
+
+	MethodCoverageCalculator(
+			final Map<AbstractInsnNode, Instruction> instructions,
+			final boolean withHits) {
 		this.instructions = instructions;
+		this.withHits = withHits;
 		this.ignored = new HashSet<AbstractInsnNode>();
 		this.merged = new HashMap<AbstractInsnNode, AbstractInsnNode>();
 		this.replacements = new HashMap<AbstractInsnNode, Set<AbstractInsnNode>>();
@@ -76,12 +86,35 @@ class MethodCoverageCalculator implements IFilterOutput {
 				final Instruction instruction = entry.getValue();
 				coverage.increment(instruction.getInstructionCounter(),
 						instruction.getBranchCounter(), instruction.getLine());
+				if (withHits) {
+					coverage.incrementLineHits(instruction.getLine(),
+							instruction.getHits());
+				}
 			}
 		}
 
 		coverage.incrementMethodCounter();
 	}
 
+	/**
+	 * Returns the hit count of the first instruction at or after the given
+	 * node. Must be called after {@link #calculate(MethodCoverageImpl)}.
+	 *
+	 * @param node
+	 *            first node of the method
+	 * @return number of executions or 0 if there is no instruction
+	 */
+	long getHits(AbstractInsnNode node) {
+		while (node != null) {
+			final Instruction instruction = instructions.get(node);
+			if (instruction != null && !ignored.contains(node)) {
+				return instruction.getHits();
+			}
+			node = node.getNext();
+		}
+		return 0;
+	}
+
 	private void applyMerges() {
 		// Merge to the representative:
 		for (final Entry<AbstractInsnNode, AbstractInsnNode> entry : merged
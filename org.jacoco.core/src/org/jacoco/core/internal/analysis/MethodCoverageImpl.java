@@ -25,6 +25,8 @@ public class MethodCoverageImpl extends SourceNodeImpl
 
 	private final String signature;
 
+	private long hits = -1;
+
 	/**
 	 * Creates a method coverage data object with the given parameters.
 	 *
@@ -66,6 +68,16 @@ public class MethodCoverageImpl extends SourceNodeImpl
 		this.complexityCounter = this.complexityCounter.increment(base);
 	}
 
+	/**
+	 * Sets the number of executions of this method.
+	 *
+	 * @param hits
+	 *            number of executions
+	 */
+	public void setHits(final long hits) {
+		this.hits = hits;
+	}
+
 	// === IMethodCoverage implementation ===
 
 	public String getDesc() {
@@ -76,4 +88,8 @@ public class MethodCoverageImpl extends SourceNodeImpl
 		return signature;
 	}
 
+	public long getHits() {
+		return hits;
+	}
+
 }
@@ -12,10 +12,13 @@
  *******************************************************************************/
 package org.jacoco.core.internal.analysis;
 
+import java.util.Arrays;
+
 import org.jacoco.core.analysis.CoverageNodeImpl;
 import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ILine;
 import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.internal.diff.DiffLines;
 
 /**
  * Implementation of {@link ISourceNode}.
@@ -29,6 +32,18 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
      */
     private int offset;
 
+    /**
+     * hit count of each line in the layout of {@link #lines}, -1 for unknown
+     * entries, <code>null</code> if no hit counts are known
+     */
+    private long[] lineHits;
+
+    /**
+     * changed lines of the source file, <code>null</code> if this is not a
+     * diff run
+     */
+    private DiffLines diffLines;
+
     /**
      * Create a new source node implementation instance.
      *
@@ -41,6 +56,26 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
         offset = UNKNOWN_LINE;
     }
 
+    /**
+     * Returns the lines of the source file changed in a diff run.
+     *
+     * @return changed lines or <code>null</code> if this is not a diff run
+     */
+    public DiffLines getDiffLines() {
+        return diffLines;
+    }
+
+    /**
+     * Sets the lines of the source file changed in a diff run. Must be set
+     * before any line is incremented, the diff counters are only updated for
+     * subsequently added lines.
+     *
+     * @param diffLines changed lines
+     */
+    public void setDiffLines(final DiffLines diffLines) {
+        this.diffLines = diffLines;
+    }
+
     /**
      * Make sure that the internal buffer can keep lines from first to last.
      * While the buffer is also incremented automatically, this method allows
@@ -63,6 +98,11 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
             if (newLength > lines.length) {
                 final LineImpl[] newLines = new LineImpl[newLength];
                 System.arraycopy(lines, 0, newLines, offset - newFirst, lines.length);
+                if (lineHits != null) {
+                    final long[] newLineHits = newLineHits(newLength);
+                    System.arraycopy(lineHits, 0, newLineHits, offset - newFirst, lineHits.length);
+                    lineHits = newLineHits;
+                }
                 offset = newFirst;
                 lines = newLines;
             }
@@ -89,6 +129,10 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
             for (int i = firstLine; i <= lastLine; i++) {
                 final ILine line = child.getLine(i);
                 incrementLine(line.getInstructionCounter(), line.getBranchCounter(), i);
+                final long hits = child.getLineHits(i);
+                if (hits >= 0) {
+                    incrementLineHits(i, hits);
+                }
             }
         }
     }
@@ -110,6 +154,31 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
         branchCounter = branchCounter.increment(branches);
     }
 
+    /**
+     * Records the hit count of an instruction on the given line. A line is
+     * executed as often as its most frequently executed instruction.
+     *
+     * @param line  line number or {@link ISourceNode#UNKNOWN_LINE}
+     * @param hits  number of executions of the instruction
+     */
+    public void incrementLineHits(final int line, final long hits) {
+        if (line == UNKNOWN_LINE) {
+            return;
+        }
+        ensureCapacity(line, line);
+        if (lineHits == null) {
+            lineHits = newLineHits(lines.length);
+        }
+        final int idx = line - offset;
+        lineHits[idx] = Math.max(lineHits[idx], hits);
+    }
+
+    private static long[] newLineHits(final int length) {
+        final long[] hits = new long[length];
+        Arrays.fill(hits, -1);
+        return hits;
+    }
+
     private void incrementLine(final ICounter instructions, final ICounter branches, final int line) {
         ensureCapacity(line, line);
         final LineImpl l = getLine(line);
@@ -117,24 +186,37 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
         final int oldCovered = l.getInstructionCounter().getCoveredCount();
         lines[line - offset] = l.increment(instructions, branches);
 
+        final boolean changed = diffLines != null && diffLines.contains(line);
+        if (changed) {
+            diffInstructionCounter = diffInstructionCounter.increment(instructions);
+            diffBranchCounter = diffBranchCounter.increment(branches);
+        }
+
         // Increment line counter:
         if (instructions.getTotalCount() > 0) {
             if (instructions.getCoveredCount() == 0) {
                 if (oldTotal == 0) {
-                    lineCounter = lineCounter.increment(CounterImpl.COUNTER_1_0);
+                    incrementLineCounter(changed, 1, 0);
                 }
             } else {
                 if (oldTotal == 0) {
-                    lineCounter = lineCounter.increment(CounterImpl.COUNTER_0_1);
+                    incrementLineCounter(changed, 0, 1);
                 } else {
                     if (oldCovered == 0) {
-                        lineCounter = lineCounter.increment(-1, +1);
+                        incrementLineCounter(changed, -1, +1);
                     }
                 }
             }
         }
     }
 
+    private void incrementLineCounter(final boolean changed, final int missed, final int covered) {
+        lineCounter = lineCounter.increment(missed, covered);
+        if (changed) {
+            diffLineCounter = diffLineCounter.increment(missed, covered);
+        }
+    }
+
     // === ISourceNode implementation ===
 
     public int getFirstLine() {
@@ -153,4 +235,11 @@ public class SourceNodeImpl extends CoverageNodeImpl implements ISourceNode {
         return line == null ? LineImpl.EMPTY : line;
     }
 
+    public long getLineHits(final int nr) {
+        if (lineHits == null || nr < getFirstLine() || nr > getLastLine()) {
+            return -1;
+        }
+        return lineHits[nr - offset];
+    }
+
 }
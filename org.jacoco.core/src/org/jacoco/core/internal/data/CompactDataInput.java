@@ -49,6 +49,42 @@ public class CompactDataInput extends DataInputStream {
 		return (value & 0x7F) | (readVarInt() << 7);
 	}
 
+	/**
+	 * Reads a variable length representation of a long value.
+	 *
+	 * @return read value
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public long readVarLong() throws IOException {
+		long value = 0;
+		int shift = 0;
+		while (true) {
+			final int b = 0xFF & readByte();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+			shift += 7;
+		}
+	}
+
+	/**
+	 * Reads a long array written by
+	 * {@link CompactDataOutput#writeVarLongArray(long[])}.
+	 *
+	 * @return long array
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public long[] readVarLongArray() throws IOException {
+		final long[] value = new long[readVarInt()];
+		for (int i = 0; i < value.length; i++) {
+			value[i] = readVarLong();
+		}
+		return value;
+	}
+
 	/**
 	 * Reads a boolean array.
 	 *
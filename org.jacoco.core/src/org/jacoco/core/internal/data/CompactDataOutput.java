@@ -53,6 +53,39 @@ public class CompactDataOutput extends DataOutputStream {
 		}
 	}
 
+	/**
+	 * Writes a variable length representation of a long value. Depending on
+	 * the given value 1 to 10 bytes will be written to the underlying stream.
+	 *
+	 * @param value
+	 *            value to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writeVarLong(long value) throws IOException {
+		while ((value & 0xFFFFFFFFFFFFFF80L) != 0) {
+			writeByte(0x80 | ((int) value & 0x7F));
+			value >>>= 7;
+		}
+		writeByte((int) value);
+	}
+
+	/**
+	 * Writes a long array with a variable length representation of every
+	 * element, so that arrays of small values need little space.
+	 *
+	 * @param value
+	 *            array to write
+	 * @throws IOException
+	 *             if thrown by the underlying stream
+	 */
+	public void writeVarLongArray(final long[] value) throws IOException {
+		writeVarInt(value.length);
+		for (final long l : value) {
+			writeVarLong(l);
+		}
+	}
+
 	/**
 	 * Writes a boolean array. Internally a sequence of boolean values is packed
 	 * into single bits.
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jacoco.core.data.ExecutionData;
+
+/**
+ * Open addressing hash map with linear probing for {@link ExecutionData}
+ * objects keyed by class id. Keys are stored unboxed in a <code>long</code>
+ * array and there are no per entry node objects. Class ids are CRC64
+ * checksums and already well distributed, the multiplication with the golden
+ * ratio only spreads them into the low bits. Entries can not be removed. This
+ * class is not thread safe.
+ */
+public final class ExecutionDataMap {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+
+	private long[] keys;
+
+	private ExecutionData[] values;
+
+	private int size;
+
+	/** the table grows when the size exceeds 3/4 of its capacity */
+	private int threshold;
+
+	/**
+	 * Creates a new empty map.
+	 */
+	public ExecutionDataMap() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Returns the entry with the given class id.
+	 *
+	 * @param id
+	 *            class id
+	 * @return entry or <code>null</code> if no entry exists for this id
+	 */
+	public ExecutionData get(final long id) {
+		final long[] keys = this.keys;
+		final ExecutionData[] values = this.values;
+		final int mask = keys.length - 1;
+		int i = index(id, mask);
+		ExecutionData value;
+		while ((value = values[i]) != null) {
+			if (keys[i] == id) {
+				return value;
+			}
+			i = (i + 1) & mask;
+		}
+		return null;
+	}
+
+	/**
+	 * Adds the given entry. An existing entry with the same id is replaced.
+	 *
+	 * @param data
+	 *            entry to add
+	 */
+	public void put(final ExecutionData data) {
+		final long id = data.getId();
+		final int mask = keys.length - 1;
+		int i = index(id, mask);
+		while (values[i] != null) {
+			if (keys[i] == id) {
+				values[i] = data;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		keys[i] = id;
+		values[i] = data;
+		if (++size > threshold) {
+			resize();
+		}
+	}
+
+	/**
+	 * Returns the number of entries.
+	 *
+	 * @return number of entries
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a copy of all entries in the order of the hash table.
+	 *
+	 * @return list of all entries
+	 */
+	public List<ExecutionData> values() {
+		final List<ExecutionData> list = new ArrayList<ExecutionData>(size);
+		for (final ExecutionData value : values) {
+			if (value != null) {
+				list.add(value);
+			}
+		}
+		return list;
+	}
+
+	private void resize() {
+		final ExecutionData[] oldValues = values;
+		allocate(oldValues.length << 1);
+		final int mask = keys.length - 1;
+		for (final ExecutionData value : oldValues) {
+			if (value != null) {
+				int i = index(value.getId(), mask);
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+				keys[i] = value.getId();
+				values[i] = value;
+			}
+		}
+	}
+
+	private void allocate(final int capacity) {
+		keys = new long[capacity];
+		values = new ExecutionData[capacity];
+		threshold = capacity - (capacity >>> 2);
+	}
+
+	private static int index(final long id, final int mask) {
+		final long hash = id * GOLDEN_RATIO;
+		return (int) (hash ^ (hash >>> 32)) & mask;
+	}
+
+}
@@ -1,13 +1,11 @@
 package org.jacoco.core.internal.diff;
 
 
-import org.apache.commons.codec.binary.Base64;
 import org.eclipse.jdt.core.dom.*;
 
-import java.io.UnsupportedEncodingException;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -70,6 +68,71 @@ public class ASTGenerator {
         return typeDeclaration;
     }
 
+    /**
+     * 获取源文件中所有的类（包括内部类和枚举）及其全部方法，按先外后内的顺序，内部类名为 Outer$Inner。
+     * 接口和注解只取其中的内部类，方法体中的局部类和匿名类不在结果中
+     *
+     * @return
+     */
+    public List<ClassInfo> getClassInfos() {
+        List<ClassInfo> classInfos = new ArrayList<ClassInfo>();
+        if (compilationUnit == null) {
+            return classInfos;
+        }
+        for (Object type : compilationUnit.types()) {
+            addClassInfos((AbstractTypeDeclaration) type, null, Collections.<String, String>emptyMap(), classInfos);
+        }
+        return classInfos;
+    }
+
+    private void addClassInfos(AbstractTypeDeclaration typeDec, String outerName, Map<String, String> outerTypeVariables, List<ClassInfo> classInfos) {
+        String simpleName = typeDec.getName().toString();
+        String className = outerName == null ? simpleName : outerName + "$" + simpleName;
+        Map<String, String> typeVariables = new HashMap<String, String>(outerTypeVariables);
+        ClassInfo classInfo = null;
+        if (typeDec instanceof TypeDeclaration) {
+            addTypeVariables(typeVariables, ((TypeDeclaration) typeDec).typeParameters());
+            if (!((TypeDeclaration) typeDec).isInterface()) {
+                classInfo = new ClassInfo();
+            }
+        } else if (typeDec instanceof EnumDeclaration) {
+            classInfo = new ClassInfo();
+        }
+        List<MethodInfo> methodInfos = new ArrayList<MethodInfo>();
+        if (classInfo != null) {
+            classInfo.setClassName(className);
+            classInfo.setPackages(getPackageName());
+            classInfo.setMethodInfos(methodInfos);
+            classInfos.add(classInfo);
+        }
+        for (Object bodyDeclaration : typeDec.bodyDeclarations()) {
+            if (bodyDeclaration instanceof MethodDeclaration) {
+                MethodDeclaration method = (MethodDeclaration) bodyDeclaration;
+                Map<String, String> methodTypeVariables = typeVariables;
+                if (!method.typeParameters().isEmpty()) {
+                    methodTypeVariables = new HashMap<String, String>(typeVariables);
+                    addTypeVariables(methodTypeVariables, method.typeParameters());
+                }
+                MethodInfo methodInfo = new MethodInfo();
+                methodInfo.setFingerprint(getFingerprint(method));
+                methodInfo.setMethodName(method.isConstructor() ? "<init>" : method.getName().toString());
+                methodInfo.setParameters(getParameterTypes(method, methodTypeVariables));
+                methodInfos.add(methodInfo);
+            } else if (bodyDeclaration instanceof AbstractTypeDeclaration) {
+                addClassInfos((AbstractTypeDeclaration) bodyDeclaration, className, typeVariables, classInfos);
+            }
+        }
+    }
+
+    private static void addTypeVariables(Map<String, String> typeVariables, List<?> typeParameters) {
+        for (Object typeParameter : typeParameters) {
+            TypeParameter parameter = (TypeParameter) typeParameter;
+            List<?> bounds = parameter.typeBounds();
+            ParameterTypes.addTypeVariable(typeVariables, parameter.getName().toString(),
+                    bounds.isEmpty() ? null : bounds.get(0).toString());
+        }
+    }
+
     /**
      * 获取类中所有方法
      *
@@ -161,29 +224,50 @@ public class ASTGenerator {
     }
 
     private void setMethodInfo(MethodInfo methodInfo, MethodDeclaration methodDeclaration) {
-        methodInfo.setMd5(MD5Encode(methodDeclaration.toString()));
+        methodInfo.setFingerprint(getFingerprint(methodDeclaration));
         methodInfo.setMethodName(methodDeclaration.getName().toString());
-        methodInfo.setParameters(methodDeclaration.parameters().toString());
+        methodInfo.setParameters(getParameterTypes(methodDeclaration));
+    }
+
+    /**
+     * 获取方法的参数类型，格式见 {@link SourceStructureParser}
+     *
+     * @param methodDeclaration
+     * @return
+     */
+    public static String getParameterTypes(MethodDeclaration methodDeclaration) {
+        return getParameterTypes(methodDeclaration, Collections.<String, String>emptyMap());
     }
 
     /**
-     * 计算方法的MD5的值
+     * 获取方法的参数类型，类型变量擦除为其上界
      *
-     * @param s
+     * @param methodDeclaration
+     * @param typeVariables     类型变量及其擦除后的类型
      * @return
      */
-    public static String MD5Encode(String s) {
-        String md5String = "";
-        try {
-            MessageDigest md5 = MessageDigest.getInstance("MD5");
-            byte[] bytes = Base64.encodeBase64(md5.digest(s.getBytes("utf-8")));
-            md5String = new String(bytes);
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
+    public static String getParameterTypes(MethodDeclaration methodDeclaration, Map<String, String> typeVariables) {
+        List<String> types = new ArrayList<String>();
+        for (Object parameter : methodDeclaration.parameters()) {
+            SingleVariableDeclaration variable = (SingleVariableDeclaration) parameter;
+            StringBuilder type = new StringBuilder(ParameterTypes.erase(ParameterTypes.normalize(variable.getType().toString()), typeVariables));
+            int dims = variable.getExtraDimensions() + (variable.isVarargs() ? 1 : 0);
+            for (int i = 0; i < dims; i++) {
+                type.append("[]");
+            }
+            types.add(type.toString());
         }
-        return md5String;
+        return ParameterTypes.join(types);
+    }
+
+    /**
+     * 计算方法指纹，直接遍历源码中方法所在的区间，不再重新生成方法文本
+     *
+     * @param methodDeclaration
+     * @return
+     */
+    public long getFingerprint(MethodDeclaration methodDeclaration) {
+        return MethodFingerprint.of(javaText, methodDeclaration.getStartPosition(), methodDeclaration.getLength());
     }
 
     /**
@@ -200,18 +284,4 @@ public class ASTGenerator {
         }
         return true;
     }
-
-    /**
-     * 判断方法是否一致
-     *
-     * @param method1
-     * @param method2
-     * @return
-     */
-    public static boolean isMethodTheSame(final MethodDeclaration method1, final MethodDeclaration method2) {
-        if (MD5Encode(method1.toString()).equals(MD5Encode(method2.toString()))) {
-            return true;
-        }
-        return false;
-    }
 }
@@ -0,0 +1,76 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 一次diff中被改动的源文件及其对应的VM类名，构建后只读
+ */
+public class ChangedClasses {
+    private static final String JAVA_SUFFIX = ".java";
+
+    /**
+     * 改动的源文件路径，如 module/src/main/java/com/foo/Bar.java
+     */
+    private final Set<String> sourcePaths;
+
+    /**
+     * 源文件路径去掉后缀后按'/'切出的所有后缀，如 com/foo/Bar、foo/Bar、Bar。
+     * 源码根目录未知，VM类名一定在其中
+     */
+    private final Set<String> classNames;
+
+    public ChangedClasses(Collection<String> paths) {
+        Set<String> sources = new HashSet<>();
+        Set<String> names = new HashSet<>();
+        for (String path : paths) {
+            sources.add(path);
+            String name = path.endsWith(JAVA_SUFFIX) ? path.substring(0, path.length() - JAVA_SUFFIX.length()) : path;
+            names.add(name);
+            int index = name.indexOf('/');
+            while (index != -1) {
+                names.add(name.substring(index + 1));
+                index = name.indexOf('/', index + 1);
+            }
+        }
+        this.sourcePaths = Collections.unmodifiableSet(sources);
+        this.classNames = Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * 获取改动的源文件路径
+     *
+     * @return
+     */
+    public Set<String> getSourcePaths() {
+        return sourcePaths;
+    }
+
+    /**
+     * 判断源文件是否改动
+     *
+     * @param path 源文件路径
+     * @return
+     */
+    public boolean containsSourcePath(String path) {
+        return sourcePaths.contains(path);
+    }
+
+    /**
+     * 判断类是否改动，内部类（Outer$Inner）按其外部类所在的源文件判断
+     *
+     * @param vmClassName VM类名，如 com/foo/Bar$Inner
+     * @return
+     */
+    public boolean containsClass(String vmClassName) {
+        int index = vmClassName.indexOf('$');
+        String outerName = index == -1 ? vmClassName : vmClassName.substring(0, index);
+        return classNames.contains(outerName);
+    }
+
+    public boolean isEmpty() {
+        return sourcePaths.isEmpty();
+    }
+}
@@ -1,29 +1,49 @@
 package org.jacoco.core.internal.diff;
 
-import org.eclipse.jdt.core.dom.MethodDeclaration;
-import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.diff.*;
-import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.AbbreviatedObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.patch.FileHeader;
-import org.eclipse.jgit.treewalk.AbstractTreeIterator;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.treewalk.filter.OrTreeFilter;
 import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.RawParseUtils;
+import org.eclipse.jgit.util.io.DisabledOutputStream;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * 代码版本比较
  */
 public class CodeDiff {
-    private final static String REF_HEADS = "refs/heads/";
     private final static String MASTER = "master";
+    private final static String TEST_PATH = "/src/test/";
+    /**
+     * 影响差异结果的过滤设置，作为缓存键的一部分
+     */
+    private final static String FILTER_SETTINGS = "exclude=" + TEST_PATH + ";comparator=WS_IGNORE_ALL";
+    /**
+     * 解析结果的版本，内置解析的输出变化时递增，使旧版本解析缓存的差异失效
+     */
+    private final static int PARSER_VERSION = 3;
+
+    private final static SourceStructureParser JDT_PARSER = new JdtSourceParser();
+
+    /**
+     * 合并基点缓存，键为 旧分支顶端提交-新分支顶端提交
+     */
+    private final static Map<String, ObjectId> MERGE_BASES = new ConcurrentHashMap<>();
 
     /**
      * 分支和分支之间的覆盖率
@@ -34,7 +54,20 @@ public class CodeDiff {
      * @return
      */
     public static List<ClassInfo> diffBranchToBranch(String gitPath, String newBranchName, String oldBranchName) {
-        List<ClassInfo> classInfos = diffMethods(gitPath, newBranchName, oldBranchName);
+        return diffBranchToBranch(gitPath, newBranchName, oldBranchName, new DiffConfig());
+    }
+
+    /**
+     * 分支和分支之间的覆盖率
+     *
+     * @param gitPath       git路径
+     * @param newBranchName 新分支名称
+     * @param oldBranchName 旧分支名称
+     * @param config        差异计算配置
+     * @return
+     */
+    public static List<ClassInfo> diffBranchToBranch(String gitPath, String newBranchName, String oldBranchName, DiffConfig config) {
+        List<ClassInfo> classInfos = diffMethods(gitPath, newBranchName, oldBranchName, config);
         return classInfos;
     }
 
@@ -46,37 +79,87 @@ public class CodeDiff {
      * @return
      */
     public static List<ClassInfo> diffBranchToMaster(String gitPath, String branchName) {
-        List<ClassInfo> classInfos = diffMethods(gitPath, branchName, MASTER);
+        return diffBranchToMaster(gitPath, branchName, new DiffConfig());
+    }
+
+    /**
+     * 分支与master差异,获取差异代码并切割到方法粒度
+     *
+     * @param gitPath    git路径
+     * @param branchName 分支名称
+     * @param config     差异计算配置
+     * @return
+     */
+    public static List<ClassInfo> diffBranchToMaster(String gitPath, String branchName, DiffConfig config) {
+        List<ClassInfo> classInfos = diffMethods(gitPath, branchName, MASTER, config);
         return classInfos;
     }
 
-    private static List<ClassInfo> diffMethods(String gitPath, String newBranchName, String oldBranchName) {
-        try {
-            //  获取本地分支
-            GitAdapter gitAdapter = new GitAdapter(gitPath);
-            Git git = gitAdapter.getGit();
-            Ref localBranchRef = gitAdapter.getRepository().exactRef(REF_HEADS + newBranchName);
-            Ref localMasterRef = gitAdapter.getRepository().exactRef(REF_HEADS + oldBranchName);
-            //  更新本地分支
-            gitAdapter.checkOutAndPull(localMasterRef, oldBranchName);
-            gitAdapter.checkOutAndPull(localBranchRef, newBranchName);
-            //  获取分支信息
-            AbstractTreeIterator newTreeParser = gitAdapter.prepareTreeParser(localBranchRef);
-            AbstractTreeIterator oldTreeParser = gitAdapter.prepareTreeParser(localMasterRef);
+    /**
+     * 任意两个版本之间的差异，获取差异代码并切割到方法粒度。
+     * 两个版本的文件树和文件内容都直接从对象库读取，不会切换分支，也不会修改索引和工作区，
+     * 同一个仓库可以被多个任务同时使用
+     *
+     * @param gitPath     git路径
+     * @param newRevision 新版本，可以是分支、标签、提交id、refs/remotes/...、HEAD~n等
+     * @param oldRevision 旧版本
+     * @param config      差异计算配置
+     * @return
+     */
+    public static List<ClassInfo> diffRevisions(String gitPath, String newRevision, String oldRevision, DiffConfig config) {
+        return diffMethods(gitPath, newRevision, oldRevision, config);
+    }
+
+    /**
+     * 计算两个版本之间的差异清单，清单可以写入文件，供插桩、分析和报告在没有git仓库的环境中使用
+     *
+     * @param gitPath     git路径
+     * @param newRevision 新版本
+     * @param oldRevision 旧版本
+     * @param config      差异计算配置
+     * @return
+     * @throws IOException 仓库或版本不存在，读取或解析失败。只有全部文件都解析成功时才写入缓存
+     */
+    public static DiffManifest diff(String gitPath, String newRevision, String oldRevision, DiffConfig config) throws IOException {
+        try (GitAdapter gitAdapter = new GitAdapter(gitPath)) {
+            Repository repository = gitAdapter.getRepository();
+            RevCommit newCommit = gitAdapter.resolveCommit(newRevision);
+            RevCommit oldCommit = gitAdapter.resolveCommit(oldRevision);
+            CodeDiffCache cache = new CodeDiffCache(repository);
+            //  三点比较：与合并基点比较，旧分支之后的提交不计入差异
+            if (config.isMergeBase()) {
+                oldCommit = getMergeBase(gitAdapter, cache, oldCommit, newCommit);
+            }
+            //  两个提交都未变化时直接读取缓存
+            String settings = getSettings(config);
+            DiffManifest cachedManifest = cache.load(oldCommit, newCommit, settings);
+            if (cachedManifest != null) {
+                return cachedManifest;
+            }
             //  对比差异
-            List<DiffEntry> diffs = git.diff()
-                    .setOldTree(oldTreeParser)
-                    .setNewTree(newTreeParser)
-                    .setPathFilter(PathSuffixFilter.create(".java"))
-                    .call();
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            DiffFormatter df = new DiffFormatter(out);
-            //设置比较器为忽略空白字符对比（Ignores all whitespace）
-            df.setDiffComparator(RawTextComparator.WS_IGNORE_ALL);
-            df.setRepository(git.getRepository());
-            List<ClassInfo> allClassInfos = batchPrepareDiffMethod(gitAdapter, newBranchName, oldBranchName, df, diffs);
-            return allClassInfos;
+            List<DiffEntry> diffs;
+            try (DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                df.setRepository(repository);
+                df.setPathFilter(createPathFilter(config));
+                //  识别重命名，移动包或重命名类时按方法与原文件比较
+                if (config.isDetectRenames()) {
+                    df.setDetectRenames(true);
+                    RenameDetector renameDetector = df.getRenameDetector();
+                    renameDetector.setRenameLimit(config.getRenameLimit());
+                    renameDetector.setRenameScore(config.getRenameScore());
+                }
+                diffs = df.scan(oldCommit.getTree(), newCommit.getTree());
+            }
+            List<ClassInfo> allClassInfos = batchPrepareDiffMethod(repository, diffs, config);
+            DiffManifest manifest = new DiffManifest(oldCommit.name(), newCommit.name(), allClassInfos);
+            cache.store(oldCommit, newCommit, settings, manifest);
+            return manifest;
+        }
+    }
+
+    private static List<ClassInfo> diffMethods(String gitPath, String newRevision, String oldRevision, DiffConfig config) {
+        try {
+            return diff(gitPath, newRevision, oldRevision, config).getClassInfos();
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -84,87 +167,163 @@ public class CodeDiff {
     }
 
     /**
-     * 多线程执行对比
+     * 影响差异结果的全部设置，作为缓存键的一部分
      *
+     * @param config
      * @return
      */
-    private static List<ClassInfo> batchPrepareDiffMethod(final GitAdapter gitAdapter, final String branchName, final String oldBranchName, final DiffFormatter df, List<DiffEntry> diffs) {
-        int threadSize = 100;
-        int dataSize = diffs.size();
-        int threadNum = dataSize / threadSize + 1;
-        boolean special = dataSize % threadSize == 0;
-        ExecutorService executorService = Executors.newFixedThreadPool(threadNum);
-
-        List<Callable<List<ClassInfo>>> tasks = new ArrayList<>();
-        Callable<List<ClassInfo>> task;
-        List<DiffEntry> cutList;
-        //  分解每条线程的数据
-        for (int i = 0; i < threadNum; i++) {
-            if (i == threadNum - 1) {
-                if (special) {
-                    break;
-                }
-                cutList = diffs.subList(threadSize * i, dataSize);
-            } else {
-                cutList = diffs.subList(threadSize * i, threadSize * (i + 1));
-            }
-            final List<DiffEntry> diffEntryList = cutList;
-            task = () -> {
-                List<ClassInfo> allList = new ArrayList<>();
-                for (DiffEntry diffEntry : diffEntryList) {
-                    ClassInfo classInfo = prepareDiffMethod(gitAdapter, branchName, oldBranchName, df, diffEntry);
-                    if (classInfo != null) allList.add(classInfo);
-                }
-                return allList;
-            };
-            // 这里提交的任务容器列表和返回的Future列表存在顺序对应的关系
-            tasks.add(task);
+    private static String getSettings(DiffConfig config) {
+        StringBuilder settings = new StringBuilder(FILTER_SETTINGS).append(";version=").append(PARSER_VERSION).append(";parsers=");
+        for (Map.Entry<String, SourceStructureParser> entry : config.getSourceParsers().entrySet()) {
+            settings.append(entry.getKey()).append(':').append(entry.getValue().getName()).append(',');
+        }
+        if (config.isDetectRenames()) {
+            settings.append(";renameLimit=").append(config.getRenameLimit()).append(";renameScore=").append(config.getRenameScore());
+        }
+        return settings.toString();
+    }
+
+    /**
+     * 只比较有解析的源文件
+     *
+     * @param config
+     * @return
+     */
+    private static TreeFilter createPathFilter(DiffConfig config) {
+        List<TreeFilter> filters = new ArrayList<>();
+        for (String suffix : config.getSourceParsers().keySet()) {
+            filters.add(PathSuffixFilter.create(suffix));
+        }
+        if (filters.isEmpty()) {
+            throw new IllegalArgumentException("No source parser configured");
+        }
+        return filters.size() == 1 ? filters.get(0) : OrTreeFilter.create(filters);
+    }
+
+    /**
+     * 获取合并基点，按两个分支的顶端提交缓存，分支不移动时无需重新遍历提交历史
+     *
+     * @return
+     * @throws IOException
+     */
+    private static RevCommit getMergeBase(GitAdapter gitAdapter, CodeDiffCache cache, RevCommit oldCommit, RevCommit newCommit) throws IOException {
+        String key = oldCommit.name() + "-" + newCommit.name();
+        ObjectId mergeBaseId = MERGE_BASES.get(key);
+        if (mergeBaseId == null) {
+            mergeBaseId = cache.loadMergeBase(oldCommit, newCommit);
+        }
+        if (mergeBaseId == null) {
+            mergeBaseId = gitAdapter.getMergeBase(oldCommit, newCommit).copy();
+            cache.storeMergeBase(oldCommit, newCommit, mergeBaseId);
         }
-        List<ClassInfo> allClassInfoList = new ArrayList<>();
+        MERGE_BASES.put(key, mergeBaseId);
+        return gitAdapter.resolveCommit(mergeBaseId.name());
+    }
+
+    /**
+     * 多线程执行对比，在work-stealing线程池中并行读取文件内容并解析
+     *
+     * @return
+     * @throws IOException 任一文件读取或解析失败
+     */
+    private static List<ClassInfo> batchPrepareDiffMethod(Repository repository, List<DiffEntry> diffs, DiffConfig config) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(config.getParallelism());
         try {
-            List<Future<List<ClassInfo>>> results = executorService.invokeAll(tasks);
-            //结果汇总
-            for (Future<List<ClassInfo>> future : results) {
-                allClassInfoList.addAll(future.get());
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
+            return pool.invoke(new DiffTask(repository, diffs, config.getSourceParsers(), 0, diffs.size()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         } finally {
             // 关闭线程池
-            executorService.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 对比一段差异文件，超过阈值时拆分为两个子任务。
+     * 每个叶子任务使用自己的ObjectReader和DiffFormatter，二者都不是线程安全的
+     */
+    private static class DiffTask extends RecursiveTask<List<ClassInfo>> {
+        private static final long serialVersionUID = 1L;
+        private static final int THRESHOLD = 8;
+
+        private final Repository repository;
+        private final List<DiffEntry> diffs;
+        private final Map<String, SourceStructureParser> parsers;
+        private final int start;
+        private final int end;
+
+        DiffTask(Repository repository, List<DiffEntry> diffs, Map<String, SourceStructureParser> parsers, int start, int end) {
+            this.repository = repository;
+            this.diffs = diffs;
+            this.parsers = parsers;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<ClassInfo> compute() {
+            if (end - start > THRESHOLD) {
+                int middle = (start + end) >>> 1;
+                DiffTask left = new DiffTask(repository, diffs, parsers, start, middle);
+                DiffTask right = new DiffTask(repository, diffs, parsers, middle, end);
+                left.fork();
+                List<ClassInfo> rightList = right.compute();
+                List<ClassInfo> allList = left.join();
+                allList.addAll(rightList);
+                return allList;
+            }
+            List<ClassInfo> allList = new ArrayList<>();
+            try (ObjectReader reader = repository.newObjectReader();
+                 DiffFormatter df = new DiffFormatter(DisabledOutputStream.INSTANCE)) {
+                df.setReader(reader, repository.getConfig());
+                //设置比较器为忽略空白字符对比（Ignores all whitespace）
+                df.setDiffComparator(RawTextComparator.WS_IGNORE_ALL);
+                for (DiffEntry diffEntry : diffs.subList(start, end)) {
+                    allList.addAll(prepareDiffMethod(reader, df, parsers, diffEntry));
+                }
+            } catch (IOException e) {
+                // 不能返回部分结果，否则缓存中会保存不完整的差异
+                throw new UncheckedIOException(e);
+            }
+            return allList;
         }
-        return allClassInfoList;
     }
 
     /**
      * 单个差异文件对比
      *
-     * @param gitAdapter
-     * @param branchName
-     * @param oldBranchName
-     * @param df
+     * @param reader    当前线程的ObjectReader
+     * @param df        当前线程的DiffFormatter
+     * @param parsers   文件后缀 -> 源文件结构解析
      * @param diffEntry
      * @return
+     * @throws IOException 文件读取或解析失败
      */
-    private synchronized static ClassInfo prepareDiffMethod(GitAdapter gitAdapter, String branchName, String oldBranchName, DiffFormatter df, DiffEntry diffEntry) {
-        List<MethodInfo> methodInfoList = new ArrayList<>();
+    private static List<ClassInfo> prepareDiffMethod(ObjectReader reader, DiffFormatter df, Map<String, SourceStructureParser> parsers, DiffEntry diffEntry) throws IOException {
+        List<ClassInfo> classInfos = new ArrayList<>();
+        String newPath = diffEntry.getNewPath();
         try {
-            String newJavaPath = diffEntry.getNewPath();
             //  排除测试类
-            if (newJavaPath.contains("/src/test/java/")) {
-                return null;
+            if (newPath.contains(TEST_PATH)) {
+                return classInfos;
             }
-            //  非java文件 和 删除类型不记录
-            if (!newJavaPath.endsWith(".java") || diffEntry.getChangeType() == DiffEntry.ChangeType.DELETE) {
-                return null;
+            //  没有解析的文件 和 删除类型不记录
+            SourceStructureParser parser = getParser(parsers, newPath);
+            if (parser == null || diffEntry.getChangeType() == DiffEntry.ChangeType.DELETE) {
+                return classInfos;
             }
 
-            String newClassContent = gitAdapter.getBranchSpecificFileContent(branchName, newJavaPath);
-
-            ASTGenerator newAstGenerator = new ASTGenerator(newClassContent);
+            List<ClassInfo> newClassInfos = parseSource(parser, newPath, readBlob(reader, diffEntry.getNewId()));
+            for (ClassInfo classInfo : newClassInfos) {
+                classInfo.setClassFile(newPath);
+            }
             /*  新增类型   */
             if (diffEntry.getChangeType() == DiffEntry.ChangeType.ADD) {
-                return newAstGenerator.getClassInfo();
+                for (ClassInfo classInfo : newClassInfos) {
+                    classInfo.setType("ADD");
+                    classInfos.add(classInfo);
+                }
+                return classInfos;
             }
             /*  修改类型  */
             //  获取文件差异位置，从而统计差异的行数，如增加行数，减少行数
@@ -180,32 +339,120 @@ public class CodeDiff {
                     addLines.add(new int[]{edit.getBeginB(), edit.getEndB()});
                 }
             }
-            String oldJavaPath = diffEntry.getOldPath();
-            String oldClassContent = gitAdapter.getBranchSpecificFileContent(oldBranchName, oldJavaPath);
-            ASTGenerator oldAstGenerator = new ASTGenerator(oldClassContent);
-            MethodDeclaration[] newMethods = newAstGenerator.getMethods();
-            MethodDeclaration[] oldMethods = oldAstGenerator.getMethods();
-            Map<String, MethodDeclaration> methodsMap = new HashMap<>();
-            for (MethodDeclaration oldMethod : oldMethods) {
-                methodsMap.put(oldMethod.getName().toString() + oldMethod.parameters().toString(), oldMethod);
-            }
-            for (final MethodDeclaration method : newMethods) {
-                // 如果方法名是新增的,则直接将方法加入List
-                if (!ASTGenerator.isMethodExist(method, methodsMap)) {
-                    MethodInfo methodInfo = newAstGenerator.getMethodInfo(method);
-                    methodInfoList.add(methodInfo);
-                    continue;
+            //  旧版本中 类名.方法名(参数类型) 对应的方法指纹，重命名的文件中旧的顶层类名换为新的类名。
+            //  旧文件按其后缀解析，如由Java改写为Kotlin的文件；旧文件没有解析时全部方法视为改动
+            String oldPath = diffEntry.getOldPath();
+            String oldTypeName = getTypeName(oldPath);
+            String newTypeName = getTypeName(newPath);
+            Map<String, Long> oldFingerprints = new HashMap<>();
+            SourceStructureParser oldParser = getParser(parsers, oldPath);
+            if (oldParser != null) {
+                Map<String, Integer> occurrences = new HashMap<>();
+                for (ClassInfo oldClassInfo : parseSource(oldParser, oldPath, readBlob(reader, diffEntry.getOldId()))) {
+                    String className = renameClass(oldClassInfo.getClassName(), oldTypeName, newTypeName);
+                    className = renameClass(className, KotlinSourceParser.getFacadeName(oldPath), KotlinSourceParser.getFacadeName(newPath));
+                    for (MethodInfo oldMethod : oldClassInfo.getMethodInfos()) {
+                        oldFingerprints.put(getMethodKey(className, oldMethod, occurrences), oldMethod.getFingerprint());
+                    }
                 }
-                // 如果两个版本都有这个方法,则根据MD5判断方法是否一致
-                if (!ASTGenerator.isMethodTheSame(method, methodsMap.get(method.getName().toString() + method.parameters().toString()))) {
-                    MethodInfo methodInfo = newAstGenerator.getMethodInfo(method);
-                    methodInfoList.add(methodInfo);
+            }
+            Map<String, Integer> occurrences = new HashMap<>();
+            for (ClassInfo classInfo : newClassInfos) {
+                List<MethodInfo> methodInfoList = new ArrayList<>();
+                for (MethodInfo method : classInfo.getMethodInfos()) {
+                    Long oldFingerprint = oldFingerprints.get(getMethodKey(classInfo.getClassName(), method, occurrences));
+                    // 方法是新增的，或两个版本都有这个方法但指纹不一致
+                    if (oldFingerprint == null || oldFingerprint != method.getFingerprint()) {
+                        methodInfoList.add(method);
+                    }
                 }
+                classInfo.setMethodInfos(methodInfoList);
+                classInfo.setAddLines(addLines);
+                classInfo.setDelLines(delLines);
+                classInfo.setType("REPLACE");
+                classInfos.add(classInfo);
             }
-            return newAstGenerator.getClassInfo(methodInfoList, addLines, delLines);
-        } catch (Exception e) {
-            e.printStackTrace();
+        } catch (RuntimeException e) {
+            throw new IOException("Unable to diff " + newPath, e);
+        }
+        return classInfos;
+    }
+
+    /**
+     * 按文件后缀获取解析
+     *
+     * @return 没有该后缀的解析时返回null
+     */
+    private static SourceStructureParser getParser(Map<String, SourceStructureParser> parsers, String path) {
+        int index = path.lastIndexOf('.');
+        return index == -1 ? null : parsers.get(path.substring(index));
+    }
+
+    /**
+     * 解析源文件结构，Java源文件扫描解析无法识别时使用JDT解析
+     *
+     * @param parser
+     * @param path
+     * @param source
+     * @return
+     */
+    private static List<ClassInfo> parseSource(SourceStructureParser parser, String path, String source) {
+        try {
+            return parser.parse(path, source);
+        } catch (IllegalStateException e) {
+            if (JdtSourceParser.NAME.equals(parser.getName()) || !path.endsWith(ScannerSourceParser.JAVA_SUFFIX)) {
+                throw e;
+            }
+            return JDT_PARSER.parse(source);
+        }
+    }
+
+    /**
+     * 类名.方法名(参数类型)，参数类型未知时同名方法按出现顺序编号区分
+     */
+    private static String getMethodKey(String className, MethodInfo methodInfo, Map<String, Integer> occurrences) {
+        String key = className + "." + methodInfo.getMethodName() + "(" + methodInfo.getParameters() + ")";
+        if (methodInfo.getParameters() == null) {
+            key += "#" + occurrences.merge(key, 1, Integer::sum);
         }
-        return null;
+        return key;
+    }
+
+    /**
+     * 文件名对应的顶层类名，如 src/main/java/com/foo/Bar.java -> Bar
+     */
+    private static String getTypeName(String path) {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        int index = fileName.lastIndexOf('.');
+        return index == -1 ? fileName : fileName.substring(0, index);
+    }
+
+    /**
+     * 重命名文件中的类名换为新的类名，如 Foo$Inner -> Bar$Inner
+     */
+    private static String renameClass(String className, String oldTypeName, String newTypeName) {
+        if (oldTypeName.equals(newTypeName)) {
+            return className;
+        }
+        if (className.equals(oldTypeName)) {
+            return newTypeName;
+        }
+        if (className.startsWith(oldTypeName + "$")) {
+            return newTypeName + className.substring(oldTypeName.length());
+        }
+        return className;
+    }
+
+    /**
+     * 直接从对象库读取文件内容
+     *
+     * @param reader
+     * @param blobId
+     * @return
+     * @throws IOException
+     */
+    private static String readBlob(ObjectReader reader, AbbreviatedObjectId blobId) throws IOException {
+        byte[] bytes = reader.open(blobId.toObjectId()).getCachedBytes();
+        return RawParseUtils.decode(bytes);
     }
 }
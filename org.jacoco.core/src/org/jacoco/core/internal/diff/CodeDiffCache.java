@@ -0,0 +1,120 @@
+package org.jacoco.core.internal.diff;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectInserter;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 方法级差异结果的磁盘缓存，位于 .git/jacoco-diff/ 下。
+ * 缓存文件以 (旧提交, 新提交, 过滤设置) 的哈希命名，提交不变时结果不变，因此无需失效。
+ * 文件格式与 {@link DiffManifest} 相同
+ */
+public class CodeDiffCache {
+    private static final String CACHE_DIR = "jacoco-diff";
+    private static final String CACHE_SUFFIX = ".diff";
+    private static final String MERGE_BASE_SUFFIX = ".base";
+
+    private final File cacheDir;
+
+    public CodeDiffCache(Repository repository) {
+        this.cacheDir = new File(repository.getDirectory(), CACHE_DIR);
+    }
+
+    /**
+     * 读取缓存
+     *
+     * @param oldId    旧提交
+     * @param newId    新提交
+     * @param settings 过滤设置
+     * @return 缓存的差异结果，不存在或无法读取时返回null
+     */
+    public DiffManifest load(AnyObjectId oldId, AnyObjectId newId, String settings) {
+        File file = getCacheFile(oldId, newId, settings);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            return DiffManifest.read(file);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 写入缓存，先写临时文件再原子重命名，并发写入同一份结果互不影响
+     *
+     * @param oldId    旧提交
+     * @param newId    新提交
+     * @param settings 过滤设置
+     * @param manifest 差异结果
+     */
+    public void store(AnyObjectId oldId, AnyObjectId newId, String settings, DiffManifest manifest) {
+        try {
+            manifest.write(getCacheFile(oldId, newId, settings));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 读取两个分支顶端提交的合并基点
+     *
+     * @param oldId 旧分支顶端提交
+     * @param newId 新分支顶端提交
+     * @return 合并基点，不存在时返回null
+     */
+    public ObjectId loadMergeBase(AnyObjectId oldId, AnyObjectId newId) {
+        File file = getMergeBaseFile(oldId, newId);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            byte[] bytes = Files.readAllBytes(file.toPath());
+            return bytes.length == Constants.OBJECT_ID_STRING_LENGTH ? ObjectId.fromString(bytes, 0) : null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * 保存两个分支顶端提交的合并基点
+     *
+     * @param oldId     旧分支顶端提交
+     * @param newId     新分支顶端提交
+     * @param mergeBase 合并基点
+     */
+    public void storeMergeBase(AnyObjectId oldId, AnyObjectId newId, AnyObjectId mergeBase) {
+        File file = getMergeBaseFile(oldId, newId);
+        File tmpFile = null;
+        try {
+            Files.createDirectories(cacheDir.toPath());
+            tmpFile = File.createTempFile(file.getName(), ".tmp", cacheDir);
+            Files.write(tmpFile.toPath(), Constants.encode(mergeBase.name()));
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    private File getMergeBaseFile(AnyObjectId oldId, AnyObjectId newId) {
+        return new File(cacheDir, oldId.name() + "-" + newId.name() + MERGE_BASE_SUFFIX);
+    }
+
+    private File getCacheFile(AnyObjectId oldId, AnyObjectId newId, String settings) {
+        String key = oldId.name() + " " + newId.name() + " " + settings;
+        String name = new ObjectInserter.Formatter().idFor(Constants.OBJ_BLOB, Constants.encode(key)).name();
+        return new File(cacheDir, name + CACHE_SUFFIX);
+    }
+}
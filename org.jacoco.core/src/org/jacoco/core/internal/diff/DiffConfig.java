@@ -0,0 +1,148 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 差异计算配置
+ */
+public class DiffConfig {
+    /**
+     * 解析差异文件的并行度，默认为CPU核数
+     */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 是否与合并基点比较（三点比较 old...new），默认直接比较两个版本
+     */
+    private boolean mergeBase = false;
+
+    /**
+     * 是否识别重命名和复制的文件，识别后按方法与原文件比较，不再视为新增文件
+     */
+    private boolean detectRenames = true;
+
+    /**
+     * 重命名识别的文件数上限，新增和删除的文件数超过上限时不再按内容比较相似度，只识别内容完全相同的文件。0表示不限制
+     */
+    private int renameLimit = 400;
+
+    /**
+     * 识别为重命名的最低相似度，0-100
+     */
+    private int renameScore = 60;
+
+    /**
+     * 文件后缀 -> 源文件结构解析，只比较有解析的源文件。
+     * 默认 .java 使用扫描解析（无法识别的源文件再交给JDT解析），.kt 使用Kotlin扫描解析
+     */
+    private final Map<String, SourceStructureParser> sourceParsers = new LinkedHashMap<>();
+
+    public DiffConfig() {
+        sourceParsers.put(ScannerSourceParser.JAVA_SUFFIX, new ScannerSourceParser());
+        sourceParsers.put(KotlinSourceParser.KOTLIN_SUFFIX, new KotlinSourceParser());
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public boolean isMergeBase() {
+        return mergeBase;
+    }
+
+    public void setMergeBase(boolean mergeBase) {
+        this.mergeBase = mergeBase;
+    }
+
+    public boolean isDetectRenames() {
+        return detectRenames;
+    }
+
+    public void setDetectRenames(boolean detectRenames) {
+        this.detectRenames = detectRenames;
+    }
+
+    public int getRenameLimit() {
+        return renameLimit;
+    }
+
+    public void setRenameLimit(int renameLimit) {
+        if (renameLimit < 0) {
+            throw new IllegalArgumentException("renameLimit must not be negative");
+        }
+        this.renameLimit = renameLimit;
+    }
+
+    public int getRenameScore() {
+        return renameScore;
+    }
+
+    public void setRenameScore(int renameScore) {
+        if (renameScore < 0 || renameScore > 100) {
+            throw new IllegalArgumentException("renameScore must be between 0 and 100");
+        }
+        this.renameScore = renameScore;
+    }
+
+    /**
+     * .java 源文件的解析
+     *
+     * @return
+     */
+    public SourceStructureParser getSourceParser() {
+        return sourceParsers.get(ScannerSourceParser.JAVA_SUFFIX);
+    }
+
+    /**
+     * 设置 .java 源文件的解析
+     *
+     * @param sourceParser
+     */
+    public void setSourceParser(SourceStructureParser sourceParser) {
+        if (sourceParser == null) {
+            throw new IllegalArgumentException("sourceParser must not be null");
+        }
+        setSourceParser(ScannerSourceParser.JAVA_SUFFIX, sourceParser);
+    }
+
+    /**
+     * @param suffix 文件后缀，如 .kt
+     * @return 没有该后缀的解析时返回null
+     */
+    public SourceStructureParser getSourceParser(String suffix) {
+        return sourceParsers.get(suffix);
+    }
+
+    /**
+     * 设置一种源文件的解析，如为 .groovy 文件注册解析后比较Groovy源文件
+     *
+     * @param suffix       文件后缀，以 . 开头
+     * @param sourceParser 解析，null表示不再比较该后缀的文件
+     */
+    public void setSourceParser(String suffix, SourceStructureParser sourceParser) {
+        if (suffix == null || !suffix.startsWith(".") || suffix.length() == 1) {
+            throw new IllegalArgumentException("suffix must start with '.'");
+        }
+        if (sourceParser == null) {
+            sourceParsers.remove(suffix);
+        } else {
+            sourceParsers.put(suffix, sourceParser);
+        }
+    }
+
+    /**
+     * @return 文件后缀 -> 源文件结构解析
+     */
+    public Map<String, SourceStructureParser> getSourceParsers() {
+        return Collections.unmodifiableMap(sourceParsers);
+    }
+}
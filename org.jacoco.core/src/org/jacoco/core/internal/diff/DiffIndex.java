@@ -0,0 +1,361 @@
+package org.jacoco.core.internal.diff;
+
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 差异方法索引，由 {@link ClassInfo} 列表一次性构建，构建后只读。
+ * 以VM类名（如 com/foo/Bar、com/foo/Bar$Inner）为键，方法按 方法名+参数类型 匹配字节码中的方法描述符，
+ * 参数类型只比较简单类型名，见 {@link SourceStructureParser}
+ */
+public final class DiffIndex {
+    private static final String INIT = "<init>";
+    private static final String CLINIT = "<clinit>";
+    private static final String LAMBDA_PREFIX = "lambda$";
+
+    /**
+     * 非静态的内部类，构造方法的第一个参数为外部实例
+     */
+    public static final int INNER_CLASS = 0x1;
+
+    /**
+     * 局部类，构造方法的末尾为捕获的变量，在非静态上下文中第一个参数为外部实例
+     */
+    public static final int LOCAL_CLASS = 0x2;
+
+    /**
+     * 枚举，构造方法的前两个参数为名称和序号
+     */
+    public static final int ENUM_CLASS = 0x4;
+
+    /**
+     * VM类名 -> 方法名 -> 各重载的参数类型，参数类型未知时为null
+     */
+    private final Map<String, Map<String, List<String[]>>> methodsByClass;
+
+    /**
+     * 有改动的顶层类
+     */
+    private final Set<String> topLevelClasses;
+
+    /**
+     * 源文件（包名/文件名，不含后缀，如 com/foo/Bar）-> 改动的行
+     */
+    private final Map<String, DiffLines> linesBySource;
+
+    public DiffIndex(List<ClassInfo> classInfos) {
+        Map<String, Map<String, List<String[]>>> index = new HashMap<>();
+        Set<String> topLevels = new HashSet<>();
+        Map<String, DiffLines> sources = new HashMap<>();
+        if (classInfos != null) {
+            for (ClassInfo classInfo : classInfos) {
+                String className = getVMClassName(classInfo);
+                Map<String, List<String[]>> methods = index.get(className);
+                if (methods == null) {
+                    methods = new HashMap<>();
+                    index.put(className, methods);
+                }
+                for (MethodInfo methodInfo : classInfo.getMethodInfos()) {
+                    List<String[]> overloads = methods.get(methodInfo.getMethodName());
+                    if (overloads == null) {
+                        overloads = new ArrayList<>(1);
+                        methods.put(methodInfo.getMethodName(), overloads);
+                    }
+                    overloads.add(splitParameters(methodInfo.getParameters()));
+                }
+                topLevels.add(getTopLevelName(className));
+                String sourceName = getSourceName(classInfo);
+                if (!sources.containsKey(sourceName)) {
+                    sources.put(sourceName, "ADD".equals(classInfo.getType()) ? DiffLines.ALL : DiffLines.of(classInfo.getAddLines()));
+                }
+            }
+        }
+        this.methodsByClass = index;
+        this.topLevelClasses = Collections.unmodifiableSet(topLevels);
+        this.linesBySource = sources;
+    }
+
+    /**
+     * 没有任何差异信息时，视为全量
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return methodsByClass.isEmpty();
+    }
+
+    /**
+     * 判断类是否有差异信息
+     *
+     * @param vmClassName VM类名
+     * @return
+     */
+    public boolean containsClass(String vmClassName) {
+        return methodsByClass.containsKey(vmClassName);
+    }
+
+    /**
+     * 判断类所在的顶层类是否有改动，匿名类和局部类不在索引中，按其顶层类判断
+     *
+     * @param vmClassName VM类名
+     * @return
+     */
+    public boolean containsTopLevelClass(String vmClassName) {
+        return topLevelClasses.contains(getTopLevelName(vmClassName));
+    }
+
+    /**
+     * 判断方法是否改动，类的构造方法没有编译器添加的参数
+     *
+     * @param vmClassName VM类名
+     * @param methodName  方法名
+     * @param desc        方法描述符
+     * @return
+     * @see #containsMethod(String, String, String, int)
+     */
+    public boolean containsMethod(String vmClassName, String methodName, String desc) {
+        return containsMethod(vmClassName, methodName, desc, 0);
+    }
+
+    /**
+     * 判断方法是否改动。lambda$foo$0 这类合成方法跟随其所在的方法 foo，
+     * Kotlin生成的 foo$default（默认参数）、foo$lambda$0（lambda）、foo-abc123（内联类参数改名）同样跟随 foo
+     *
+     * @param vmClassName VM类名
+     * @param methodName  方法名
+     * @param desc        方法描述符
+     * @param classKind   {@link #INNER_CLASS}、{@link #LOCAL_CLASS}、{@link #ENUM_CLASS} 的组合，
+     *                    决定构造方法中允许出现哪些编译器添加的参数
+     * @return
+     */
+    public boolean containsMethod(String vmClassName, String methodName, String desc, int classKind) {
+        Map<String, List<String[]>> methods = methodsByClass.get(vmClassName);
+        if (methods == null) {
+            return false;
+        }
+        if (methodName.startsWith(LAMBDA_PREFIX)) {
+            return methods.containsKey(getLambdaEnclosingName(methodName));
+        }
+        List<String[]> overloads = methods.get(methodName);
+        if (overloads == null) {
+            String enclosingName = getGeneratedEnclosingName(methodName);
+            return enclosingName != null && methods.containsKey(enclosingName);
+        }
+        String[] types = getParameterTypes(desc);
+        for (String[] parameters : overloads) {
+            if (parameters == null || matches(vmClassName, methodName, parameters, types, classKind)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 判断匿名类或局部类所在的方法是否改动，这两种类的改动随其所在的方法记录
+     *
+     * @param owner 所在的类
+     * @param name  所在的方法，在字段初始化或初始化块中时为null
+     * @param desc  所在方法的描述符
+     * @return
+     */
+    public boolean containsEnclosingMethod(String owner, String name, String desc) {
+        if (name == null) {
+            return false;
+        }
+        if (methodsByClass.containsKey(owner)) {
+            // 所在类的访问标志未知，按类名允许可能出现的编译器添加的参数
+            return containsMethod(owner, name, desc, guessClassKind(owner));
+        }
+        //  所在的类本身也是匿名类或局部类时无法精确判断，外部类有改动即视为改动
+        return topLevelClasses.contains(getTopLevelName(owner));
+    }
+
+    /**
+     * 获取源文件中改动的行
+     *
+     * @param packageName    VM包名，如 com/foo
+     * @param sourceFileName 源文件名，如 Bar.java
+     * @return 改动的行，源文件没有改动时返回 {@link DiffLines#NONE}
+     */
+    public DiffLines getDiffLines(String packageName, String sourceFileName) {
+        int index = sourceFileName.lastIndexOf('.');
+        String baseName = index == -1 ? sourceFileName : sourceFileName.substring(0, index);
+        String sourceName = packageName == null || packageName.isEmpty() ? baseName : packageName + "/" + baseName;
+        DiffLines lines = linesBySource.get(sourceName);
+        return lines == null ? DiffLines.NONE : lines;
+    }
+
+    /**
+     * 源码中的参数与字节码中的参数比较。构造方法的字节码参数可能多出编译器添加的参数：
+     * 开头的枚举名称和序号或内部类的外部实例，末尾的局部类捕获的变量，其余参数必须完全一致
+     */
+    private static boolean matches(String vmClassName, String methodName, String[] parameters, String[] types,
+                                   int classKind) {
+        if (!INIT.equals(methodName) || classKind == 0) {
+            return Arrays.equals(parameters, types);
+        }
+        if (matchesFrom(parameters, types, 0, classKind)) {
+            return true;
+        }
+        if ((classKind & ENUM_CLASS) != 0 && types.length >= 2 && "String".equals(types[0])
+                && "int".equals(types[1]) && matchesFrom(parameters, types, 2, classKind)) {
+            return true;
+        }
+        return (classKind & (INNER_CLASS | LOCAL_CLASS)) != 0 && types.length >= 1
+                && types[0].equals(getOuterSimpleName(vmClassName)) && matchesFrom(parameters, types, 1, classKind);
+    }
+
+    /**
+     * 从 offset 开始比较，只有局部类允许字节码参数在末尾多出捕获的变量
+     */
+    private static boolean matchesFrom(String[] parameters, String[] types, int offset, int classKind) {
+        int available = types.length - offset;
+        if ((classKind & LOCAL_CLASS) != 0 ? available < parameters.length : available != parameters.length) {
+            return false;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            if (!parameters[i].equals(types[offset + i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 外部类的简单类型名，如 com/foo/Bar$Inner -> Bar、com/foo/Bar$1Local -> Bar
+     */
+    private static String getOuterSimpleName(String vmClassName) {
+        int index = vmClassName.lastIndexOf('$');
+        if (index == -1) {
+            return null;
+        }
+        String outer = vmClassName.substring(0, index);
+        return outer.substring(Math.max(outer.lastIndexOf('/'), outer.lastIndexOf('$')) + 1);
+    }
+
+    /**
+     * 仅凭类名推测类的种类：嵌套类可能是内部类，$ 后以数字开头的是局部类，是否为枚举无法判断
+     */
+    private static int guessClassKind(String vmClassName) {
+        int index = vmClassName.lastIndexOf('$');
+        if (index == -1) {
+            return ENUM_CLASS;
+        }
+        int kind = INNER_CLASS | ENUM_CLASS;
+        if (index + 1 < vmClassName.length() && Character.isDigit(vmClassName.charAt(index + 1))) {
+            kind |= LOCAL_CLASS;
+        }
+        return kind;
+    }
+
+    /**
+     * 编译器生成的方法名中 $ 或 - 之前的部分，如 foo$default -> foo
+     *
+     * @return 不是生成的方法名时返回null
+     */
+    private static String getGeneratedEnclosingName(String methodName) {
+        for (int i = 1; i < methodName.length(); i++) {
+            char c = methodName.charAt(i);
+            if (c == '$' || c == '-') {
+                return methodName.substring(0, i);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * lambda$foo$0 -> foo，构造方法和静态初始化中的lambda为 lambda$new$0、lambda$static$0
+     */
+    private static String getLambdaEnclosingName(String methodName) {
+        int start = LAMBDA_PREFIX.length();
+        int end = methodName.indexOf('$', start);
+        String name = end == -1 ? methodName.substring(start) : methodName.substring(start, end);
+        if ("new".equals(name)) {
+            return INIT;
+        }
+        if ("static".equals(name)) {
+            return CLINIT;
+        }
+        return name;
+    }
+
+    private static String[] getParameterTypes(String desc) {
+        Type[] argumentTypes = Type.getArgumentTypes(desc);
+        String[] types = new String[argumentTypes.length];
+        for (int i = 0; i < argumentTypes.length; i++) {
+            types[i] = getSimpleName(argumentTypes[i]);
+        }
+        return types;
+    }
+
+    /**
+     * 字节码类型转为简单类型名，如 [Ljava/util/Map$Entry; -> Entry[]
+     */
+    private static String getSimpleName(Type type) {
+        int dims = 0;
+        if (type.getSort() == Type.ARRAY) {
+            dims = type.getDimensions();
+            type = type.getElementType();
+        }
+        String name;
+        if (type.getSort() == Type.OBJECT) {
+            name = type.getInternalName();
+            name = name.substring(Math.max(name.lastIndexOf('/'), name.lastIndexOf('$')) + 1);
+        } else {
+            name = type.getClassName();
+        }
+        StringBuilder sb = new StringBuilder(name);
+        for (int i = 0; i < dims; i++) {
+            sb.append("[]");
+        }
+        return sb.toString();
+    }
+
+    private static String[] splitParameters(String parameters) {
+        if (parameters == null) {
+            return null;
+        }
+        return parameters.isEmpty() ? new String[0] : parameters.split(",");
+    }
+
+    private static String getTopLevelName(String vmClassName) {
+        int index = vmClassName.indexOf('$', vmClassName.lastIndexOf('/') + 1);
+        return index == -1 ? vmClassName : vmClassName.substring(0, index);
+    }
+
+    /**
+     * 源文件名优先取自文件路径，一个文件中的类名可能与文件名不同
+     */
+    private static String getSourceName(ClassInfo classInfo) {
+        String baseName;
+        String classFile = classInfo.getClassFile();
+        if (classFile != null) {
+            baseName = classFile.substring(classFile.lastIndexOf('/') + 1);
+            int index = baseName.lastIndexOf('.');
+            baseName = index == -1 ? baseName : baseName.substring(0, index);
+        } else {
+            baseName = getTopLevelName(classInfo.getClassName());
+        }
+        String packages = classInfo.getPackages();
+        if (packages == null || packages.isEmpty()) {
+            return baseName;
+        }
+        return packages.replace('.', '/') + "/" + baseName;
+    }
+
+    private static String getVMClassName(ClassInfo classInfo) {
+        String packages = classInfo.getPackages();
+        if (packages == null || packages.isEmpty()) {
+            return classInfo.getClassName();
+        }
+        return packages.replace('.', '/') + "/" + classInfo.getClassName();
+    }
+}
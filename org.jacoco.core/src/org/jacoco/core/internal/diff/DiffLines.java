@@ -0,0 +1,58 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 一个源文件中新增或修改的行，构建后只读，按行号O(1)查询
+ */
+public final class DiffLines {
+    /**
+     * 没有改动的源文件
+     */
+    public static final DiffLines NONE = new DiffLines(false, new BitSet());
+
+    /**
+     * 新增的源文件，所有行都是新增的
+     */
+    public static final DiffLines ALL = new DiffLines(true, new BitSet());
+
+    private final boolean all;
+
+    /**
+     * 新增或修改的行号，从1开始
+     */
+    private final BitSet lines;
+
+    private DiffLines(boolean all, BitSet lines) {
+        this.all = all;
+        this.lines = lines;
+    }
+
+    /**
+     * 由差异区间构建
+     *
+     * @param addLines 新版本中的差异区间 [begin, end)，行号从0开始
+     * @return
+     */
+    public static DiffLines of(List<int[]> addLines) {
+        if (addLines == null || addLines.isEmpty()) {
+            return NONE;
+        }
+        BitSet lines = new BitSet();
+        for (int[] range : addLines) {
+            lines.set(range[0] + 1, range[1] + 1);
+        }
+        return new DiffLines(false, lines);
+    }
+
+    /**
+     * 判断行是否新增或修改
+     *
+     * @param lineNr 行号，从1开始
+     * @return
+     */
+    public boolean contains(int lineNr) {
+        return all || lineNr >= 0 && lines.get(lineNr);
+    }
+}
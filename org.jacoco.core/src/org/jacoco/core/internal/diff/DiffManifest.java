@@ -0,0 +1,248 @@
+package org.jacoco.core.internal.diff;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 差异清单：一次差异计算的完整结果，包括两个版本的提交id、改动的类、方法签名、改动的行和修改类型。
+ * 在CI中由 diff 命令生成一次，之后的插桩、分析和报告直接读取，不再需要git仓库、JGit和JDT。
+ *
+ * <pre>
+ * int    MAGIC_NUMBER
+ * int    FORMAT_VERSION
+ * string 旧提交id
+ * string 新提交id
+ * int    类数量
+ * 每个类：string 源文件路径, string 类名, string 包名, string 修改类型, lines 新增的行, lines 删除的行,
+ *        int 方法数量, 每个方法：long 指纹, string 方法名, string 参数类型
+ * </pre>
+ * <p>
+ * string 为 int 字节数（-1 表示null）加UTF-8字节，lines 为 int 区间数（-1 表示null）加每个区间的两个int
+ */
+public final class DiffManifest {
+    public static final int MAGIC_NUMBER = 0x4A44464D;
+    public static final int FORMAT_VERSION = 1;
+
+    private final String oldCommit;
+    private final String newCommit;
+    private final List<ClassInfo> classInfos;
+
+    public DiffManifest(String oldCommit, String newCommit, List<ClassInfo> classInfos) {
+        this.oldCommit = oldCommit;
+        this.newCommit = newCommit;
+        this.classInfos = Collections.unmodifiableList(new ArrayList<>(classInfos));
+    }
+
+    public String getOldCommit() {
+        return oldCommit;
+    }
+
+    public String getNewCommit() {
+        return newCommit;
+    }
+
+    public List<ClassInfo> getClassInfos() {
+        return classInfos;
+    }
+
+    /**
+     * 构建差异方法索引
+     *
+     * @return
+     */
+    public DiffIndex createDiffIndex() {
+        return new DiffIndex(classInfos);
+    }
+
+    /**
+     * 写入输出流
+     *
+     * @param output
+     * @throws IOException
+     */
+    public void write(OutputStream output) throws IOException {
+        DataOutputStream out = new DataOutputStream(output);
+        out.writeInt(MAGIC_NUMBER);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, oldCommit);
+        writeString(out, newCommit);
+        out.writeInt(classInfos.size());
+        for (ClassInfo classInfo : classInfos) {
+            writeString(out, classInfo.getClassFile());
+            writeString(out, classInfo.getClassName());
+            writeString(out, classInfo.getPackages());
+            writeString(out, classInfo.getType());
+            writeLines(out, classInfo.getAddLines());
+            writeLines(out, classInfo.getDelLines());
+            List<MethodInfo> methodInfos = classInfo.getMethodInfos();
+            out.writeInt(methodInfos.size());
+            for (MethodInfo methodInfo : methodInfos) {
+                out.writeLong(methodInfo.getFingerprint());
+                writeString(out, methodInfo.getMethodName());
+                writeString(out, methodInfo.getParameters());
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * 写入文件，先写临时文件再原子重命名，读取方不会读到写了一半的文件
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void write(File file) throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(dir.toPath());
+        File tmpFile = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(tmpFile))) {
+                write(out);
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * 以内存映射方式读取文件
+     *
+     * @param file
+     * @return
+     * @throws IOException 文件不存在、不是差异清单或版本不一致
+     */
+    public static DiffManifest read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 从缓冲区读取
+     *
+     * @param buffer
+     * @return
+     * @throws IOException 不是差异清单或版本不一致
+     */
+    public static DiffManifest read(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC_NUMBER) {
+                throw new IOException("Invalid diff manifest");
+            }
+            int version = buffer.getInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Incompatible diff manifest version 0x" + Integer.toHexString(version));
+            }
+            String oldCommit = readString(buffer);
+            String newCommit = readString(buffer);
+            // 每个类至少包含4个字符串、2个行区间列表和方法数量
+            int classCount = readCount(buffer, 28);
+            List<ClassInfo> classInfos = new ArrayList<>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                ClassInfo classInfo = new ClassInfo();
+                classInfo.setClassFile(readString(buffer));
+                classInfo.setClassName(readString(buffer));
+                classInfo.setPackages(readString(buffer));
+                classInfo.setType(readString(buffer));
+                classInfo.setAddLines(readLines(buffer));
+                classInfo.setDelLines(readLines(buffer));
+                int methodCount = readCount(buffer, 16);
+                List<MethodInfo> methodInfos = new ArrayList<>(methodCount);
+                for (int j = 0; j < methodCount; j++) {
+                    MethodInfo methodInfo = new MethodInfo();
+                    methodInfo.setFingerprint(buffer.getLong());
+                    methodInfo.setMethodName(readString(buffer));
+                    methodInfo.setParameters(readString(buffer));
+                    methodInfos.add(methodInfo);
+                }
+                classInfo.setMethodInfos(methodInfos);
+                classInfos.add(classInfo);
+            }
+            return new DiffManifest(oldCommit, newCommit, classInfos);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated diff manifest", e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 读取元素数量，并检查剩余的数据足够容纳这些元素，文件被截断或损坏时不会按错误的长度分配内存
+     *
+     * @param buffer
+     * @param elementSize 每个元素至少占用的字节数
+     * @return
+     * @throws IOException 数量为负或超过剩余数据
+     */
+    private static int readCount(ByteBuffer buffer, int elementSize) throws IOException {
+        int count = buffer.getInt();
+        checkCount(buffer, count, elementSize);
+        return count;
+    }
+
+    private static void checkCount(ByteBuffer buffer, int count, int elementSize) throws IOException {
+        if (count < 0 || (long) count * elementSize > buffer.remaining()) {
+            throw new IOException("Corrupt diff manifest");
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        if (length == -1) {
+            return null;
+        }
+        checkCount(buffer, length, 1);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLines(DataOutputStream out, List<int[]> lines) throws IOException {
+        if (lines == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(lines.size());
+        for (int[] line : lines) {
+            out.writeInt(line[0]);
+            out.writeInt(line[1]);
+        }
+    }
+
+    private static List<int[]> readLines(ByteBuffer buffer) throws IOException {
+        int size = buffer.getInt();
+        if (size == -1) {
+            return null;
+        }
+        checkCount(buffer, size, 8);
+        List<int[]> lines = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lines.add(new int[]{buffer.getInt(), buffer.getInt()});
+        }
+        return lines;
+    }
+}
@@ -7,6 +7,7 @@ import org.eclipse.jgit.lib.*;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevTree;
 import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
 import org.eclipse.jgit.transport.CredentialsProvider;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
@@ -20,10 +21,11 @@ import java.util.Collection;
 /**
  * Git操作类
  */
-public class GitAdapter {
+public class GitAdapter implements AutoCloseable {
     private Git git;
     private Repository repository;
     private String gitFilePath;
+    private final static String REMOTE_ORIGIN = "origin/";
 
     //  Git授权
     public static final String USERNAME = "qa-jenkins"; //qa-jenkins
@@ -68,6 +70,48 @@ public class GitAdapter {
         }
     }
 
+    /**
+     * 解析版本对应的提交，只读取对象库。
+     * 支持分支、标签、提交id、refs/remotes/...、HEAD~n等写法，本地不存在的分支再尝试 origin/分支
+     *
+     * @param revision 版本
+     * @return 提交
+     * @throws IOException 版本不存在
+     */
+    public RevCommit resolveCommit(String revision) throws IOException {
+        ObjectId commitId = repository.resolve(revision + "^{commit}");
+        if (commitId == null) {
+            commitId = repository.resolve(REMOTE_ORIGIN + revision + "^{commit}");
+        }
+        if (commitId == null) {
+            throw new IOException("Unknown revision " + revision);
+        }
+        try (RevWalk walk = new RevWalk(repository)) {
+            return walk.parseCommit(commitId);
+        }
+    }
+
+    /**
+     * 计算两个提交的合并基点
+     *
+     * @param commit1
+     * @param commit2
+     * @return 合并基点
+     * @throws IOException 两个提交没有共同祖先
+     */
+    public RevCommit getMergeBase(RevCommit commit1, RevCommit commit2) throws IOException {
+        try (RevWalk walk = new RevWalk(repository)) {
+            walk.setRevFilter(RevFilter.MERGE_BASE);
+            walk.markStart(walk.parseCommit(commit1));
+            walk.markStart(walk.parseCommit(commit2));
+            RevCommit mergeBase = walk.next();
+            if (mergeBase == null) {
+                throw new IOException("No merge base between " + commit1.name() + " and " + commit2.name());
+            }
+            return mergeBase;
+        }
+    }
+
     /**
      * 获取指定分支的指定文件内容
      *
@@ -181,6 +225,13 @@ public class GitAdapter {
     }
 
 
+    @Override
+    public void close() {
+        if (git != null) {
+            git.close();
+        }
+    }
+
     public static void main(String[] args) throws Exception {
         String oldBranchName = "master";
         GitAdapter gitAdapter = new GitAdapter("/Users/changfeng/work/jacoco/codes/live/.git");
@@ -0,0 +1,20 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.List;
+
+/**
+ * 基于JDT完整语法树的解析，速度较慢但能处理任意合法源码，作为扫描解析失败时的兜底
+ */
+public class JdtSourceParser implements SourceStructureParser {
+    public static final String NAME = "jdt";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<ClassInfo> parse(String source) {
+        return new ASTGenerator(source).getClassInfos();
+    }
+}
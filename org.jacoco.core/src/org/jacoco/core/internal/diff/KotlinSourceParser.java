@@ -0,0 +1,789 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Kotlin源文件的扫描解析，与 {@link ScannerSourceParser} 一样只识别包名、类和函数的边界，类名按字节码中的名称输出：
+ * <ul>
+ * <li>顶层函数和属性在文件类 FooKt 中（foo.kt 首字母大写加 Kt，@file:JvmName 指定时为指定的名称）</li>
+ * <li>嵌套类为 Outer$Inner，伴生对象为 Outer$Companion 或其名称</li>
+ * <li>接口中的函数同时记在 Outer$DefaultImpls 中，未使用 -Xjvm-default 时带方法体的接口函数编译到这个类</li>
+ * </ul>
+ * Kotlin类型无法仅凭源码对应到字节码类型（可空基本类型、类型别名、扩展函数的接收者、suspend函数的续体参数等），
+ * 因此参数类型为null，按方法名匹配全部重载。
+ * 类体中函数和嵌套类以外的部分（类头、主构造函数、属性、init块）计入 &lt;init&gt;，object和伴生对象同时计入 &lt;clinit&gt;，
+ * 伴生对象的属性在外部类的 &lt;clinit&gt; 中初始化，也计入外部类的 &lt;clinit&gt;；文件中函数和类以外的部分计入文件类的 &lt;clinit&gt;。
+ * 属性带方法体的 get()、set(...) 访问器按字节码中的 getX、setX（is开头的属性为 isX、setX）单独输出
+ */
+public class KotlinSourceParser implements SourceStructureParser {
+    public static final String NAME = "kotlin-scanner";
+    public static final String KOTLIN_SUFFIX = ".kt";
+
+    private static final String INIT = "<init>";
+    private static final String CLINIT = "<clinit>";
+    private static final String COMPANION = "Companion";
+    private static final String DEFAULT_IMPLS = "$DefaultImpls";
+    private static final Pattern JVM_NAME = Pattern.compile("JvmName\\s*\\(\\s*\"([^\"]*)\"");
+
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "protected", "private", "internal", "open", "final", "abstract", "override", "sealed",
+            "data", "enum", "annotation", "inner", "value", "inline", "noinline", "crossinline", "suspend",
+            "tailrec", "operator", "infix", "external", "lateinit", "const", "vararg", "reified", "expect", "actual"));
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /**
+     * 不知道文件名时无法确定文件类名，只有 @file:JvmName 指定了名称时才输出顶层函数
+     */
+    @Override
+    public List<ClassInfo> parse(String source) {
+        return new Scanner(source, null).parse();
+    }
+
+    @Override
+    public List<ClassInfo> parse(String path, String source) {
+        return new Scanner(source, getFacadeName(path)).parse();
+    }
+
+    /**
+     * 源文件中顶层函数所在的类名，如 src/main/kotlin/com/foo/bar.kt -> BarKt
+     *
+     * @param path 源文件路径
+     * @return
+     */
+    public static String getFacadeName(String path) {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        int index = fileName.lastIndexOf('.');
+        String baseName = index == -1 ? fileName : fileName.substring(0, index);
+        StringBuilder sb = new StringBuilder(baseName.length() + 2);
+        for (int i = 0; i < baseName.length(); i++) {
+            char c = baseName.charAt(i);
+            sb.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        if (sb.length() > 0) {
+            sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        }
+        return sb.append("Kt").toString();
+    }
+
+    /**
+     * 类体或文件的解析状态，函数和嵌套类以外的源码按顺序拼接，作为 &lt;init&gt; 或 &lt;clinit&gt; 的指纹来源
+     */
+    private static final class Scope {
+        private final String className;
+        private final List<MethodInfo> methodInfos = new ArrayList<>();
+        private final StringBuilder residual = new StringBuilder();
+        private int segmentStart;
+
+        Scope(String className, int segmentStart) {
+            this.className = className;
+            this.segmentStart = segmentStart;
+        }
+
+        /**
+         * 排除 [start, end) 之间的源码
+         */
+        void exclude(String src, int start, int end) {
+            if (start > segmentStart) {
+                residual.append(src, segmentStart, start).append('\n');
+            }
+            segmentStart = end;
+        }
+
+        void finish(String src, int end) {
+            if (end > segmentStart) {
+                residual.append(src, segmentStart, end);
+            }
+            segmentStart = end;
+        }
+
+        long residualFingerprint() {
+            return MethodFingerprint.of(residual, 0, residual.length());
+        }
+
+        /**
+         * 只有空白和注释时没有需要初始化的内容
+         */
+        boolean hasResidual() {
+            return residualFingerprint() != MethodFingerprint.of("", 0, 0);
+        }
+    }
+
+    private static final class Scanner {
+        private final String src;
+        private final int len;
+        private int pos;
+        /**
+         * 最近一次跳过的空白和注释中是否有换行
+         */
+        private boolean newline;
+        private String packageName = "";
+        private String facadeName;
+        private final List<ClassInfo> classInfos = new ArrayList<>();
+
+        Scanner(String src, String facadeName) {
+            this.src = src;
+            this.len = src.length();
+            this.facadeName = facadeName;
+        }
+
+        List<ClassInfo> parse() {
+            Scope file = new Scope(null, 0);
+            parseMembers(file);
+            if (facadeName != null) {
+                if (file.hasResidual()) {
+                    file.methodInfos.add(newMethodInfo(CLINIT, file.residualFingerprint()));
+                }
+                if (!file.methodInfos.isEmpty()) {
+                    classInfos.add(0, newClassInfo(facadeName, file.methodInfos));
+                }
+            }
+            for (ClassInfo classInfo : classInfos) {
+                classInfo.setPackages(packageName);
+            }
+            return classInfos;
+        }
+
+        /**
+         * 解析文件或类体中的成员，类体从 { 之后开始，结束时位于对应的 } 之后
+         */
+        private void parseMembers(Scope scope) {
+            //  当前成员的开始位置，包括修饰符和注解，-1表示下一个记号开始新的成员
+            int memberStart = -1;
+            char previous = 0;
+            //  上一个记号的结束位置，最近声明的属性名，访问器属于这个属性
+            int tokenEnd = pos;
+            String property = null;
+            while (true) {
+                if (!skipTrivia()) {
+                    if (scope.className != null) {
+                        throw new IllegalStateException("Unexpected end of class body");
+                    }
+                    scope.finish(src, pos);
+                    return;
+                }
+                int start = pos;
+                if (memberStart == -1) {
+                    memberStart = start;
+                }
+                char c = src.charAt(pos);
+                if (c == '}') {
+                    if (scope.className == null) {
+                        throw new IllegalStateException("Unbalanced '}'");
+                    }
+                    scope.finish(src, pos);
+                    pos++;
+                    return;
+                }
+                boolean modifier = false;
+                if (c == '@') {
+                    if (scope.className == null && src.startsWith("@file:", pos)) {
+                        skipAnnotation();
+                        Matcher matcher = JVM_NAME.matcher(src.substring(start, pos));
+                        if (matcher.find()) {
+                            facadeName = matcher.group(1);
+                        }
+                        scope.exclude(src, start, pos);
+                    } else {
+                        skipAnnotation();
+                        modifier = true;
+                    }
+                } else if (isIdentifierStart(c)) {
+                    String word = readIdentifier();
+                    if (previous == ':' && start > 0 && src.charAt(start - 1) == ':') {
+                        //  Foo::class 等引用
+                    } else if (MODIFIERS.contains(word)) {
+                        modifier = true;
+                    } else if ("package".equals(word) || "import".equals(word)) {
+                        if ("package".equals(word)) {
+                            packageName = readQualifiedName();
+                        }
+                        skipLine();
+                        scope.exclude(src, start, pos);
+                    } else if ("val".equals(word) || "var".equals(word)) {
+                        property = readPropertyName();
+                    } else if (("get".equals(word) || "set".equals(word)) && property != null
+                            && isAccessorPosition(tokenEnd) && isNext('(')) {
+                        parseAccessor(scope, getAccessorName(property, "get".equals(word)), memberStart);
+                    } else if ("fun".equals(word)) {
+                        property = null;
+                        if (isNextWord("interface")) {
+                            readIdentifierAfterTrivia();
+                            parseClass(scope, "interface", memberStart);
+                        } else {
+                            parseFunction(scope, memberStart);
+                        }
+                    } else if ("class".equals(word) || "interface".equals(word) || "object".equals(word)) {
+                        property = null;
+                        parseClass(scope, word, memberStart);
+                    } else if ("companion".equals(word) && isNextWord("object")) {
+                        readIdentifierAfterTrivia();
+                        parseClass(scope, "companion", memberStart);
+                    } else if ("constructor".equals(word) && scope.className != null && isNext('(')) {
+                        parseConstructor(scope, memberStart);
+                    }
+                } else if (c == '{' || c == '(' || c == '[') {
+                    skipBalanced();
+                } else if (c == '"' || c == '\'') {
+                    skipLiteral();
+                } else {
+                    pos++;
+                }
+                previous = c;
+                tokenEnd = pos;
+                if (!modifier) {
+                    memberStart = -1;
+                }
+            }
+        }
+
+        /**
+         * 解析函数，当前位置在 fun 之后。匿名函数（fun 之后直接是参数）不是成员，按普通源码处理
+         */
+        private void parseFunction(Scope scope, int memberStart) {
+            int end = pos;
+            String name = null;
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == '<') {
+                    skipAngle();
+                } else if (c == '.' || c == '?') {
+                    pos++;
+                } else if (isIdentifierStart(c)) {
+                    name = readIdentifier();
+                } else if (c == '(' && name == null) {
+                    int parenStart = pos;
+                    skipBalanced();
+                    //  函数类型的接收者，如 fun (() -> Unit).foo()
+                    skipTrivia();
+                    if (!src.startsWith(".", pos)) {
+                        pos = parenStart;
+                        break;
+                    }
+                } else {
+                    break;
+                }
+            }
+            if (name == null || !isNext('(')) {
+                pos = end;
+                return;
+            }
+            skipBalanced();
+            skipDeclarationTail();
+            addMethod(scope, name, memberStart);
+        }
+
+        /**
+         * 读取属性名，当前位置在 val 或 var 之后，跳过类型参数和扩展属性的接收者，如 val &lt;T&gt; List&lt;T&gt;.second。
+         * 结束时位于属性名之后，没有属性名时（如解构声明）返回null且不移动位置
+         */
+        private String readPropertyName() {
+            int end = pos;
+            String name = null;
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == '<') {
+                    skipAngle();
+                    continue;
+                }
+                if (!isIdentifierStart(c)) {
+                    break;
+                }
+                name = readIdentifier();
+                end = pos;
+                //  接收者类型之后是 . 和属性名
+                if (pos < len && src.charAt(pos) == '<') {
+                    skipAngle();
+                }
+                if (pos < len && src.charAt(pos) == '?') {
+                    pos++;
+                }
+                if (pos >= len || src.charAt(pos) != '.') {
+                    break;
+                }
+                pos++;
+            }
+            pos = end;
+            return name;
+        }
+
+        /**
+         * 访问器只能出现在类型、初始化表达式或另一个访问器之后，运算符、逗号和左括号之后的 get( 是函数调用
+         */
+        private boolean isAccessorPosition(int tokenEnd) {
+            if (tokenEnd == 0) {
+                return false;
+            }
+            char c = src.charAt(tokenEnd - 1);
+            return Character.isJavaIdentifierPart(c) || c == '`' || c == '>' || c == '?' || c == ')' || c == ']'
+                    || c == '}' || c == '"' || c == '\'';
+        }
+
+        /**
+         * 字节码中访问器的名称，如 foo -> getFoo、setFoo，isFoo -> isFoo、setFoo
+         */
+        private static String getAccessorName(String property, boolean getter) {
+            if (property.startsWith("is") && property.length() > 2 && !Character.isLowerCase(property.charAt(2))) {
+                return getter ? property : "set" + property.substring(2);
+            }
+            String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+            return (getter ? "get" : "set") + capitalized;
+        }
+
+        /**
+         * 解析属性访问器，当前位置在 get 或 set 之后的 ( 处
+         */
+        private void parseAccessor(Scope scope, String name, int memberStart) {
+            skipBalanced();
+            skipDeclarationTail();
+            addMethod(scope, name, memberStart);
+        }
+
+        /**
+         * 解析次构造函数，当前位置在 constructor 之后
+         */
+        private void parseConstructor(Scope scope, int memberStart) {
+            skipTrivia();
+            skipBalanced();
+            skipDeclarationTail();
+            addMethod(scope, INIT, memberStart);
+        }
+
+        private void addMethod(Scope scope, String name, int memberStart) {
+            scope.methodInfos.add(newMethodInfo(name, MethodFingerprint.of(src, memberStart, pos - memberStart)));
+            scope.exclude(src, memberStart, pos);
+        }
+
+        /**
+         * 解析类、接口、object或伴生对象，当前位置在关键字之后。object表达式没有名称，按普通源码处理
+         */
+        private void parseClass(Scope scope, String kind, int memberStart) {
+            int end = pos;
+            String name;
+            if (skipTrivia() && isIdentifierStart(src.charAt(pos))) {
+                name = readIdentifier();
+            } else if ("companion".equals(kind)) {
+                name = COMPANION;
+            } else {
+                pos = end;
+                return;
+            }
+            String className = scope.className == null ? name : scope.className + "$" + name;
+            Scope body = new Scope(className, memberStart);
+            ClassInfo classInfo = newClassInfo(className, body.methodInfos);
+            classInfos.add(classInfo);
+            if (skipClassHeader()) {
+                pos++;
+                parseMembers(body);
+            } else {
+                body.finish(src, pos);
+            }
+            scope.exclude(src, memberStart, pos);
+            if ("interface".equals(kind)) {
+                if (!body.methodInfos.isEmpty()) {
+                    classInfos.add(newClassInfo(className + DEFAULT_IMPLS, new ArrayList<>(body.methodInfos)));
+                }
+                return;
+            }
+            long fingerprint = body.residualFingerprint();
+            if (!"object".equals(kind) && !"companion".equals(kind)) {
+                body.methodInfos.add(newMethodInfo(INIT, fingerprint));
+                return;
+            }
+            body.methodInfos.add(newMethodInfo(INIT, fingerprint));
+            body.methodInfos.add(newMethodInfo(CLINIT, fingerprint));
+            if ("companion".equals(kind)) {
+                scope.methodInfos.add(newMethodInfo(CLINIT, fingerprint));
+            }
+        }
+
+        /**
+         * 跳过类头：类型参数、主构造函数、父类和委托、where子句
+         *
+         * @return 有类体时返回true，位于 { 处
+         */
+        private boolean skipClassHeader() {
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == '{') {
+                    return true;
+                }
+                if (c == '}' || c == ';') {
+                    return false;
+                }
+                if (newline && !(c == ':' || c == ',' || c == '(' || c == '<' || c == '.'
+                        || isWordAt("where") || isWordAt("by") || isWordAt("constructor"))) {
+                    return false;
+                }
+                skipToken();
+            }
+            return false;
+        }
+
+        /**
+         * 跳过函数参数之后的部分：返回类型、where子句和函数体。没有函数体时停在声明结束的换行处
+         */
+        private void skipDeclarationTail() {
+            int end = pos;
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == '{') {
+                    skipBalanced();
+                    return;
+                }
+                if (c == '=' && !src.startsWith("==", pos)) {
+                    pos++;
+                    skipExpression();
+                    return;
+                }
+                if (c == '}' || c == ';') {
+                    break;
+                }
+                if (newline && !(c == ':' || c == ',' || c == '.' || c == '?' || c == '<' || c == '-' || isWordAt("where"))) {
+                    break;
+                }
+                if (c == '-' && src.startsWith("->", pos)) {
+                    pos += 2;
+                } else {
+                    skipToken();
+                }
+                end = pos;
+            }
+            pos = end;
+        }
+
+        /**
+         * 跳过表达式函数体，到换行处语句结束为止
+         */
+        private void skipExpression() {
+            int end = pos;
+            char last = '=';
+            char beforeLast = 0;
+            String lastWord = null;
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (newline && !continuesExpression(last, beforeLast, lastWord)) {
+                    break;
+                }
+                if (c == ')' || c == ']' || c == '}') {
+                    break;
+                }
+                if (c == ';') {
+                    pos++;
+                    end = pos;
+                    break;
+                }
+                beforeLast = last;
+                lastWord = null;
+                if (isIdentifierStart(c)) {
+                    lastWord = readIdentifier();
+                    last = 'a';
+                } else if (c == '{' || c == '(' || c == '[' || c == '"' || c == '\'') {
+                    skipToken();
+                    last = ')';
+                } else {
+                    pos++;
+                    last = c;
+                }
+                end = pos;
+            }
+            pos = end;
+        }
+
+        /**
+         * 换行之后表达式是否继续：行尾是二元运算符，或下一行以 . ?. ?: &amp;&amp; || else 等开头
+         */
+        private boolean continuesExpression(char last, char beforeLast, String lastWord) {
+            if (".,=*/%&|:".indexOf(last) >= 0 || (last == '+' || last == '-') && beforeLast != last) {
+                return true;
+            }
+            if ("in".equals(lastWord) || "is".equals(lastWord) || "as".equals(lastWord) || "else".equals(lastWord)) {
+                return true;
+            }
+            return src.startsWith(".", pos) || src.startsWith("?.", pos) || src.startsWith("?:", pos)
+                    || src.startsWith("&&", pos) || src.startsWith("||", pos)
+                    || isWordAt("else") || isWordAt("catch") || isWordAt("finally");
+        }
+
+        /**
+         * 跳过一个记号，括号和字符串整体跳过
+         */
+        private void skipToken() {
+            char c = src.charAt(pos);
+            if (c == '{' || c == '(' || c == '[') {
+                skipBalanced();
+            } else if (c == '<') {
+                skipAngle();
+            } else if (c == '"' || c == '\'') {
+                skipLiteral();
+            } else if (c == '@') {
+                skipAnnotation();
+            } else if (isIdentifierStart(c)) {
+                readIdentifier();
+            } else {
+                pos++;
+            }
+        }
+
+        /**
+         * 跳过空白和注释，块注释可以嵌套
+         *
+         * @return 是否还有内容
+         */
+        private boolean skipTrivia() {
+            newline = false;
+            while (pos < len) {
+                char c = src.charAt(pos);
+                if (c == '\n') {
+                    newline = true;
+                    pos++;
+                } else if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (src.startsWith("//", pos)) {
+                    skipLine();
+                } else if (src.startsWith("/*", pos)) {
+                    skipBlockComment();
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void skipLine() {
+            while (pos < len && src.charAt(pos) != '\n') {
+                pos++;
+            }
+        }
+
+        private void skipBlockComment() {
+            int depth = 0;
+            while (pos < len) {
+                if (src.startsWith("/*", pos)) {
+                    depth++;
+                    pos += 2;
+                } else if (src.startsWith("*/", pos)) {
+                    pos += 2;
+                    if (--depth == 0) {
+                        return;
+                    }
+                } else {
+                    pos++;
+                }
+            }
+        }
+
+        /**
+         * 跳过成对的括号，当前位置在 { ( 或 [ 处，结束时位于对应的右括号之后
+         */
+        private void skipBalanced() {
+            int depth = 0;
+            while (pos < len) {
+                char c = src.charAt(pos);
+                if (src.startsWith("//", pos)) {
+                    skipLine();
+                } else if (src.startsWith("/*", pos)) {
+                    skipBlockComment();
+                } else if (c == '"' || c == '\'') {
+                    skipLiteral();
+                } else {
+                    pos++;
+                    if (c == '{' || c == '(' || c == '[') {
+                        depth++;
+                    } else if ((c == '}' || c == ')' || c == ']') && --depth == 0) {
+                        return;
+                    }
+                }
+            }
+            throw new IllegalStateException("Unbalanced brackets");
+        }
+
+        /**
+         * 跳过类型参数，当前位置在 &lt; 处。遇到不可能出现在类型中的字符时停止，说明是比较运算符
+         */
+        private void skipAngle() {
+            int depth = 0;
+            while (pos < len) {
+                char c = src.charAt(pos);
+                if (c == '(' || c == '[') {
+                    skipBalanced();
+                    continue;
+                }
+                if (c == '{' || c == '}' || c == ';' || c == '=') {
+                    return;
+                }
+                if (src.startsWith("->", pos)) {
+                    pos += 2;
+                    continue;
+                }
+                pos++;
+                if (c == '<') {
+                    depth++;
+                } else if (c == '>' && --depth == 0) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * 跳过字符串或字符，字符串模板 ${...} 中可以有嵌套的字符串
+         */
+        private void skipLiteral() {
+            if (src.charAt(pos) == '\'') {
+                pos++;
+                while (pos < len && src.charAt(pos) != '\'' && src.charAt(pos) != '\n') {
+                    pos += src.charAt(pos) == '\\' ? 2 : 1;
+                }
+                pos++;
+                return;
+            }
+            boolean raw = src.startsWith("\"\"\"", pos);
+            pos += raw ? 3 : 1;
+            while (pos < len) {
+                char c = src.charAt(pos);
+                if (raw && src.startsWith("\"\"\"", pos)) {
+                    pos += 3;
+                    while (pos < len && src.charAt(pos) == '"') {
+                        pos++;
+                    }
+                    return;
+                }
+                if (!raw && c == '"') {
+                    pos++;
+                    return;
+                }
+                if (!raw && c == '\n') {
+                    return;
+                }
+                if (c == '$' && src.startsWith("${", pos)) {
+                    pos++;
+                    skipBalanced();
+                } else {
+                    pos += !raw && c == '\\' ? 2 : 1;
+                }
+            }
+        }
+
+        /**
+         * 跳过注解，如 @Foo、@Foo(...)、@get:Foo、@[Foo Bar]
+         */
+        private void skipAnnotation() {
+            pos++;
+            if (pos < len && isIdentifierStart(src.charAt(pos))) {
+                int end = pos;
+                readIdentifier();
+                if (pos < len && src.charAt(pos) == ':' && !src.startsWith("::", pos)) {
+                    pos++;
+                } else {
+                    pos = end;
+                }
+            }
+            if (pos < len && src.charAt(pos) == '[') {
+                skipBalanced();
+                return;
+            }
+            while (pos < len && isIdentifierStart(src.charAt(pos))) {
+                readIdentifier();
+                if (pos + 1 < len && src.charAt(pos) == '.' && isIdentifierStart(src.charAt(pos + 1))) {
+                    pos++;
+                }
+            }
+            if (pos < len && src.charAt(pos) == '<') {
+                skipAngle();
+            }
+            if (pos < len && src.charAt(pos) == '(') {
+                skipBalanced();
+            }
+        }
+
+        private boolean isIdentifierStart(char c) {
+            return Character.isJavaIdentifierStart(c) || c == '`';
+        }
+
+        /**
+         * 读取标识符，反引号中的名称去掉反引号
+         */
+        private String readIdentifier() {
+            if (src.charAt(pos) == '`') {
+                int end = src.indexOf('`', pos + 1);
+                if (end == -1) {
+                    throw new IllegalStateException("Unterminated identifier");
+                }
+                String name = src.substring(pos + 1, end);
+                pos = end + 1;
+                return name;
+            }
+            int start = pos;
+            while (pos < len && Character.isJavaIdentifierPart(src.charAt(pos))) {
+                pos++;
+            }
+            return src.substring(start, pos);
+        }
+
+        private String readIdentifierAfterTrivia() {
+            skipTrivia();
+            return readIdentifier();
+        }
+
+        private String readQualifiedName() {
+            StringBuilder sb = new StringBuilder();
+            while (skipTrivia() && !newline && isIdentifierStart(src.charAt(pos))) {
+                sb.append(readIdentifier());
+                if (pos < len && src.charAt(pos) == '.') {
+                    sb.append('.');
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            return sb.toString();
+        }
+
+        private boolean isWordAt(String word) {
+            int end = pos + word.length();
+            return src.startsWith(word, pos) && (end == len || !Character.isJavaIdentifierPart(src.charAt(end)));
+        }
+
+        /**
+         * 跳过空白和注释后是否为指定的单词，不移动当前位置
+         */
+        private boolean isNextWord(String word) {
+            int end = pos;
+            boolean result = skipTrivia() && isWordAt(word);
+            pos = end;
+            return result;
+        }
+
+        private boolean isNext(char c) {
+            int end = pos;
+            boolean result = skipTrivia() && src.charAt(pos) == c;
+            if (!result) {
+                pos = end;
+            }
+            return result;
+        }
+
+        private ClassInfo newClassInfo(String className, List<MethodInfo> methodInfos) {
+            ClassInfo classInfo = new ClassInfo();
+            classInfo.setClassName(className);
+            classInfo.setMethodInfos(methodInfos);
+            return classInfo;
+        }
+
+        private MethodInfo newMethodInfo(String name, long fingerprint) {
+            MethodInfo methodInfo = new MethodInfo();
+            methodInfo.setMethodName(name);
+            methodInfo.setFingerprint(fingerprint);
+            return methodInfo;
+        }
+    }
+}
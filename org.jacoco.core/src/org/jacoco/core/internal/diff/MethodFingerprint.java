@@ -0,0 +1,126 @@
+package org.jacoco.core.internal.diff;
+
+/**
+ * 方法指纹：对方法的源码区间做一次遍历，计算64位FNV-1a哈希。
+ * 注释被忽略，空白只在两个标识符字符之间保留为一个分隔符，字符串和字符字面量原样参与计算，
+ * 因此只改格式或注释的方法指纹不变
+ */
+public final class MethodFingerprint {
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private MethodFingerprint() {
+    }
+
+    /**
+     * 计算源码区间的指纹
+     *
+     * @param source 源码
+     * @param start  起始位置
+     * @param length 长度
+     * @return
+     */
+    public static long of(CharSequence source, int start, int length) {
+        long hash = FNV_OFFSET_BASIS;
+        int end = Math.min(source.length(), start + length);
+        //  上一个参与计算的字符是否为标识符字符，以及其后是否出现过空白或注释
+        boolean lastIdentifier = false;
+        boolean separated = false;
+        int i = Math.max(start, 0);
+        while (i < end) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                separated = true;
+                i++;
+                continue;
+            }
+            if (c == '/' && i + 1 < end) {
+                char next = source.charAt(i + 1);
+                if (next == '/') {
+                    i = skipLineComment(source, i + 2, end);
+                    separated = true;
+                    continue;
+                }
+                if (next == '*') {
+                    i = skipBlockComment(source, i + 2, end);
+                    separated = true;
+                    continue;
+                }
+            }
+            boolean identifier = Character.isJavaIdentifierPart(c);
+            if (separated && lastIdentifier && identifier) {
+                hash = update(hash, ' ');
+            }
+            separated = false;
+            if (c == '"' || c == '\'') {
+                //  字面量原样计算，包括其中的空白和类似注释的内容
+                int literalEnd = Math.min(end, skipLiteral(source, i + 1, end, c));
+                for (; i < literalEnd; i++) {
+                    hash = update(hash, source.charAt(i));
+                }
+                lastIdentifier = false;
+                continue;
+            }
+            hash = update(hash, c);
+            lastIdentifier = identifier;
+            i++;
+        }
+        return hash;
+    }
+
+    private static long update(long hash, char c) {
+        hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+        return (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+
+    private static int skipLineComment(CharSequence source, int i, int end) {
+        while (i < end && source.charAt(i) != '\n' && source.charAt(i) != '\r') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipBlockComment(CharSequence source, int i, int end) {
+        while (i + 1 < end) {
+            if (source.charAt(i) == '*' && source.charAt(i + 1) == '/') {
+                return i + 2;
+            }
+            i++;
+        }
+        return end;
+    }
+
+    /**
+     * 返回字面量结束位置（含结束引号），文本块 """ 同样适用
+     */
+    private static int skipLiteral(CharSequence source, int i, int end, char quote) {
+        if (quote == '"' && i + 1 < end && source.charAt(i) == '"' && source.charAt(i + 1) == '"') {
+            //  文本块
+            i += 2;
+            while (i + 2 < end) {
+                char c = source.charAt(i);
+                if (c == '\\') {
+                    i += 2;
+                    continue;
+                }
+                if (c == '"' && source.charAt(i + 1) == '"' && source.charAt(i + 2) == '"') {
+                    return i + 3;
+                }
+                i++;
+            }
+            return end;
+        }
+        while (i < end) {
+            char c = source.charAt(i);
+            if (c == '\\') {
+                i += 2;
+                continue;
+            }
+            if (c == quote || c == '\n') {
+                return i + 1;
+            }
+            i++;
+        }
+        return end;
+    }
+}
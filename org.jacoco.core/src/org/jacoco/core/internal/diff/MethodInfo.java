@@ -2,9 +2,9 @@ package org.jacoco.core.internal.diff;
 
 public class MethodInfo {
     /**
-     * 方法的md5
+     * 方法指纹，见 {@link MethodFingerprint}
      */
-    public String md5;
+    public long fingerprint;
     /**
      * 方法名
      */
@@ -14,12 +14,12 @@ public class MethodInfo {
      */
     public String parameters;
 
-    public String getMd5() {
-        return md5;
+    public long getFingerprint() {
+        return fingerprint;
     }
 
-    public void setMd5(String md5) {
-        this.md5 = md5;
+    public void setFingerprint(long fingerprint) {
+        this.fingerprint = fingerprint;
     }
 
     public String getMethodName() {
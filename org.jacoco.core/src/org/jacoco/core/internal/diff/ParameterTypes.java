@@ -0,0 +1,237 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 方法参数类型的统一表示：去掉注解、泛型、注释和包名，保留简单类型名和数组维度，可变参数视为数组
+ */
+final class ParameterTypes {
+    private static final String ARRAY = "[]";
+    private static final String VARARGS = "...";
+    private static final String FINAL = "final";
+    private static final String OBJECT = "Object";
+
+    private ParameterTypes() {
+    }
+
+    /**
+     * 统一类型的写法，如 java.util.Map.Entry&lt;K, V&gt;[] 转为 Entry[]
+     *
+     * @param type 类型源码
+     * @return
+     */
+    static String normalize(String type) {
+        String s = removeSpaces(clean(type));
+        int dims = 0;
+        while (true) {
+            if (s.endsWith(ARRAY)) {
+                s = s.substring(0, s.length() - ARRAY.length());
+            } else if (s.endsWith(VARARGS)) {
+                s = s.substring(0, s.length() - VARARGS.length());
+            } else {
+                break;
+            }
+            dims++;
+        }
+        s = s.substring(s.lastIndexOf('.') + 1);
+        return dims == 0 ? s : appendDims(new StringBuilder(s), dims).toString();
+    }
+
+    /**
+     * 从参数声明源码中取出统一后的类型，如 final @NotNull String... args 转为 String[]
+     *
+     * @param declaration 参数声明源码
+     * @return 类型，接收者参数（Foo this）返回null
+     */
+    static String parameter(String declaration) {
+        String s = clean(declaration);
+        int end = s.length();
+        //  参数名后面的数组维度，如 int a[]
+        int dims = 0;
+        while (end > 0) {
+            char c = s.charAt(end - 1);
+            if (c == ']') {
+                dims++;
+            } else if (c != '[' && c != ' ') {
+                break;
+            }
+            end--;
+        }
+        int nameStart = end;
+        while (nameStart > 0 && Character.isJavaIdentifierPart(s.charAt(nameStart - 1))) {
+            nameStart--;
+        }
+        if (nameStart > 0 && s.charAt(nameStart - 1) == '.' || "this".equals(s.substring(nameStart, end))) {
+            return null;
+        }
+        StringBuilder type = new StringBuilder();
+        for (String word : s.substring(0, nameStart).split(" ")) {
+            if (!FINAL.equals(word)) {
+                type.append(word);
+            }
+        }
+        String normalized = normalize(type.toString());
+        return dims == 0 ? normalized : appendDims(new StringBuilder(normalized), dims).toString();
+    }
+
+    /**
+     * 类型变量擦除为其第一个上界，没有上界时为Object，如 T extends Comparable&lt;T&gt; 擦除为 Comparable
+     *
+     * @param type          统一后的类型
+     * @param typeVariables 类型变量及其擦除后的类型
+     * @return
+     */
+    static String erase(String type, Map<String, String> typeVariables) {
+        if (typeVariables.isEmpty()) {
+            return type;
+        }
+        int index = type.indexOf('[');
+        String base = index == -1 ? type : type.substring(0, index);
+        String erasure = typeVariables.get(base);
+        if (erasure == null) {
+            return type;
+        }
+        return index == -1 ? erasure : erasure + type.substring(index);
+    }
+
+    /**
+     * 记录一个类型变量
+     *
+     * @param typeVariables 类型变量及其擦除后的类型
+     * @param name          类型变量名
+     * @param bound         第一个上界的源码，没有上界时为null
+     */
+    static void addTypeVariable(Map<String, String> typeVariables, String name, String bound) {
+        typeVariables.put(name, bound == null ? OBJECT : erase(normalize(bound), typeVariables));
+    }
+
+    /**
+     * 记录类型参数列表中的类型变量，如 K, V extends Comparable&lt;? super V&gt; &amp; Serializable
+     *
+     * @param typeVariables 类型变量及其擦除后的类型
+     * @param declarations  尖括号内的源码
+     */
+    static void addTypeVariables(Map<String, String> typeVariables, String declarations) {
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i <= declarations.length(); i++) {
+            char c = i == declarations.length() ? ',' : declarations.charAt(i);
+            if (c == '<' || c == '(') {
+                depth++;
+            } else if (c == '>' || c == ')') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                String declaration = clean(declarations.substring(start, i));
+                start = i + 1;
+                int nameEnd = 0;
+                while (nameEnd < declaration.length() && Character.isJavaIdentifierPart(declaration.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                if (nameEnd == 0) {
+                    continue;
+                }
+                String bound = null;
+                int extendsIndex = declaration.indexOf(" extends ", nameEnd - 1);
+                if (extendsIndex != -1) {
+                    bound = declaration.substring(extendsIndex + " extends ".length());
+                    int andIndex = bound.indexOf('&');
+                    bound = andIndex == -1 ? bound : bound.substring(0, andIndex);
+                }
+                addTypeVariable(typeVariables, declaration.substring(0, nameEnd), bound);
+            }
+        }
+    }
+
+    /**
+     * 拼接参数类型
+     *
+     * @param types
+     * @return
+     */
+    static String join(List<String> types) {
+        StringBuilder sb = new StringBuilder();
+        for (String type : types) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(type);
+        }
+        return sb.toString();
+    }
+
+    private static StringBuilder appendDims(StringBuilder sb, int dims) {
+        for (int i = 0; i < dims; i++) {
+            sb.append(ARRAY);
+        }
+        return sb;
+    }
+
+    /**
+     * 去掉注解、泛型和注释，连续空白合并为一个空格
+     */
+    private static String clean(String text) {
+        StringBuilder sb = new StringBuilder(text.length());
+        int len = text.length();
+        int i = 0;
+        while (i < len) {
+            char c = text.charAt(i);
+            if (c == '/' && i + 1 < len && text.charAt(i + 1) == '/') {
+                i = text.indexOf('\n', i);
+                i = i == -1 ? len : i;
+                appendSpace(sb);
+            } else if (c == '/' && i + 1 < len && text.charAt(i + 1) == '*') {
+                i = text.indexOf("*/", i + 2);
+                i = i == -1 ? len : i + 2;
+                appendSpace(sb);
+            } else if (c == '@') {
+                i++;
+                while (i < len && (Character.isJavaIdentifierPart(text.charAt(i)) || text.charAt(i) == '.')) {
+                    i++;
+                }
+                int j = i;
+                while (j < len && Character.isWhitespace(text.charAt(j))) {
+                    j++;
+                }
+                if (j < len && text.charAt(j) == '(') {
+                    i = skipBalanced(text, j, '(', ')');
+                }
+                appendSpace(sb);
+            } else if (c == '<') {
+                i = skipBalanced(text, i, '<', '>');
+                appendSpace(sb);
+            } else if (Character.isWhitespace(c)) {
+                appendSpace(sb);
+                i++;
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        return sb.toString().trim();
+    }
+
+    private static int skipBalanced(String text, int i, char open, char close) {
+        int depth = 0;
+        int len = text.length();
+        while (i < len) {
+            char c = text.charAt(i++);
+            if (c == open) {
+                depth++;
+            } else if (c == close && --depth == 0) {
+                return i;
+            }
+        }
+        return len;
+    }
+
+    private static void appendSpace(StringBuilder sb) {
+        if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+            sb.append(' ');
+        }
+    }
+
+    private static String removeSpaces(String s) {
+        return s.indexOf(' ') == -1 ? s : s.replace(" ", "");
+    }
+}
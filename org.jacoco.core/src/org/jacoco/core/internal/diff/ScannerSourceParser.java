@@ -0,0 +1,464 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 基于字符扫描的轻量解析，不构建语法树，只识别包名、类和方法的边界。
+ * 跳过注释、字符串、字符和文本块字面量，按括号配对定位方法体，方法体内部不做任何解析，
+ * 因此方法体中的局部类和匿名类不在结果中。括号不配对时抛出 {@link IllegalStateException}
+ */
+public class ScannerSourceParser implements SourceStructureParser {
+    public static final String NAME = "scanner";
+    public static final String JAVA_SUFFIX = ".java";
+    private static final String INIT = "<init>";
+
+    private static final Set<String> MODIFIERS = new HashSet<>(Arrays.asList(
+            "public", "protected", "private", "static", "final", "abstract", "synchronized",
+            "native", "strictfp", "default", "transient", "volatile", "sealed"));
+    private static final String NON_SEALED_SUFFIX = "-sealed";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public List<ClassInfo> parse(String source) {
+        return new Scanner(source).parse();
+    }
+
+    private static final class Scanner {
+        private final String src;
+        private final int len;
+        private int pos;
+        private String packageName = "";
+        private final List<ClassInfo> classInfos = new ArrayList<>();
+
+        Scanner(String src) {
+            this.src = src;
+            this.len = src.length();
+        }
+
+        List<ClassInfo> parse() {
+            Map<String, String> typeVariables = Collections.emptyMap();
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == '@') {
+                    if (isAnnotationType()) {
+                        pos++;
+                        skipTrivia();
+                        parseType(readIdentifier(), null, typeVariables);
+                    } else {
+                        skipAnnotation();
+                    }
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    String word = readIdentifier();
+                    if ("package".equals(word)) {
+                        packageName = readQualifiedName();
+                    } else if ("import".equals(word)) {
+                        skipTo(';');
+                    } else if (isTypeKeyword(word) && (!"record".equals(word) || isRecordDeclaration())) {
+                        parseType(word, null, typeVariables);
+                    }
+                } else {
+                    pos++;
+                }
+            }
+            return classInfos;
+        }
+
+        /**
+         * 解析类型声明，当前位置在class/interface/enum/record关键字之后。
+         * 类、枚举和记录类按先外后内的顺序加入结果，内部类名为 Outer$Inner；接口和注解只解析其中的内部类
+         *
+         * @param kind          关键字，注解为interface
+         * @param outerName     外部类名，顶层类为null
+         * @param typeVariables 外部类的类型变量及其擦除后的类型
+         */
+        private void parseType(String kind, String outerName, Map<String, String> typeVariables) {
+            skipTrivia();
+            String simpleName = readIdentifier();
+            String className = outerName == null ? simpleName : outerName + "$" + simpleName;
+            Map<String, String> variables = new HashMap<>(typeVariables);
+            if (skipTrivia() && src.charAt(pos) == '<') {
+                int start = pos;
+                skipBalanced('<', '>');
+                ParameterTypes.addTypeVariables(variables, src.substring(start + 1, pos - 1));
+            }
+            skipTo('{');
+            ClassInfo classInfo = null;
+            if (!"interface".equals(kind)) {
+                classInfo = new ClassInfo();
+                classInfo.setClassName(className);
+                classInfo.setPackages(packageName);
+                classInfos.add(classInfo);
+            }
+            if ("enum".equals(kind)) {
+                skipEnumConstants();
+            }
+            List<MethodInfo> methodInfos = parseBody(className, simpleName, variables);
+            if (classInfo != null) {
+                classInfo.setMethodInfos(methodInfos);
+            }
+        }
+
+        /**
+         * 解析类体中的方法，当前位置在类体的 { 之后，结束时位于对应的 } 之后
+         */
+        private List<MethodInfo> parseBody(String className, String simpleName, Map<String, String> typeVariables) {
+            List<MethodInfo> methodInfos = new ArrayList<>();
+            while (true) {
+                if (!skipTrivia()) {
+                    throw new IllegalStateException("Unexpected end of class body");
+                }
+                char c = src.charAt(pos);
+                if (c == '}') {
+                    pos++;
+                    return methodInfos;
+                }
+                if (c == ';') {
+                    pos++;
+                    continue;
+                }
+                MethodInfo methodInfo = parseMember(className, simpleName, typeVariables);
+                if (methodInfo != null) {
+                    methodInfos.add(methodInfo);
+                }
+            }
+        }
+
+        /**
+         * 解析一个成员：方法、构造方法、字段、初始化块或内部类，只返回方法，内部类直接加入结果
+         */
+        private MethodInfo parseMember(String className, String simpleName, Map<String, String> typeVariables) {
+            int start = pos;
+            //  方法名之前除修饰符外的标识符个数，构造方法只有方法名一个
+            int identifiers = 0;
+            int lastIdentifierStart = -1;
+            int lastIdentifierEnd = -1;
+            boolean constructor = false;
+            String name = null;
+            int paramsStart = -1;
+            int paramsEnd = -1;
+            Map<String, String> variables = typeVariables;
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == '@') {
+                    if (isAnnotationType()) {
+                        pos++;
+                        skipTrivia();
+                        parseType(readIdentifier(), className, typeVariables);
+                        return null;
+                    }
+                    skipAnnotation();
+                } else if (Character.isJavaIdentifierStart(c)) {
+                    lastIdentifierStart = pos;
+                    String word = readIdentifier();
+                    lastIdentifierEnd = pos;
+                    if (name != null) {
+                        continue;
+                    }
+                    //  non-sealed 被扫描为 non - sealed，整体作为修饰符
+                    if ("non".equals(word) && isNonSealed()) {
+                        pos += NON_SEALED_SUFFIX.length();
+                        continue;
+                    }
+                    if (isTypeKeyword(word) && ("record".equals(word) ? isRecordDeclaration() : identifiers == 0)) {
+                        parseType(word, className, typeVariables);
+                        return null;
+                    }
+                    if (!MODIFIERS.contains(word)) {
+                        identifiers++;
+                    }
+                } else if (c == '(') {
+                    if (name == null && lastIdentifierStart != -1) {
+                        name = src.substring(lastIdentifierStart, lastIdentifierEnd);
+                        constructor = identifiers == 1 && name.equals(simpleName);
+                        paramsStart = pos + 1;
+                        skipBalanced('(', ')');
+                        paramsEnd = pos - 1;
+                    } else {
+                        skipBalanced('(', ')');
+                    }
+                } else if (c == '<') {
+                    int typeParamsStart = pos;
+                    skipBalanced('<', '>');
+                    //  修饰符之后、返回类型之前的是方法的类型参数
+                    if (name == null && identifiers == 0) {
+                        variables = new HashMap<>(typeVariables);
+                        ParameterTypes.addTypeVariables(variables, src.substring(typeParamsStart + 1, pos - 1));
+                    }
+                } else if (c == '=') {
+                    //  字段初始化，其中可能有匿名类和lambda
+                    skipTo(';');
+                    return null;
+                } else if (c == ';') {
+                    pos++;
+                    //  抽象方法或native方法没有方法体
+                    return name == null ? null : newMethodInfo(constructor ? INIT : name, paramsStart, paramsEnd, start, variables);
+                } else if (c == '{') {
+                    skipBalanced('{', '}');
+                    //  初始化块没有方法名
+                    return name == null ? null : newMethodInfo(constructor ? INIT : name, paramsStart, paramsEnd, start, variables);
+                } else if (c == '"' || c == '\'') {
+                    skipLiteral();
+                } else {
+                    pos++;
+                }
+            }
+            throw new IllegalStateException("Unexpected end of member declaration");
+        }
+
+        /**
+         * 当前位置在标识符non之后，判断是否为non-sealed修饰符
+         */
+        private boolean isNonSealed() {
+            int end = pos + NON_SEALED_SUFFIX.length();
+            return src.startsWith(NON_SEALED_SUFFIX, pos) && (end == len || !Character.isJavaIdentifierPart(src.charAt(end)));
+        }
+
+        private MethodInfo newMethodInfo(String name, int paramsStart, int paramsEnd, int start, Map<String, String> typeVariables) {
+            MethodInfo methodInfo = new MethodInfo();
+            methodInfo.setMethodName(name);
+            methodInfo.setParameters(getParameterTypes(paramsStart, paramsEnd, typeVariables));
+            methodInfo.setFingerprint(MethodFingerprint.of(src, start, pos - start));
+            return methodInfo;
+        }
+
+        /**
+         * 按顶层逗号切分参数列表
+         */
+        private String getParameterTypes(int start, int end, Map<String, String> typeVariables) {
+            List<String> types = new ArrayList<>();
+            int depth = 0;
+            int segmentStart = start;
+            for (int i = start; i <= end; i++) {
+                char c = i == end ? ',' : src.charAt(i);
+                if (c == '(' || c == '<' || c == '[') {
+                    depth++;
+                } else if (c == ')' || c == '>' || c == ']') {
+                    depth--;
+                } else if (c == ',' && depth == 0) {
+                    if (i > segmentStart) {
+                        String type = ParameterTypes.parameter(src.substring(segmentStart, i));
+                        if (type != null && !type.isEmpty()) {
+                            types.add(ParameterTypes.erase(type, typeVariables));
+                        }
+                    }
+                    segmentStart = i + 1;
+                }
+            }
+            return ParameterTypes.join(types);
+        }
+
+        /**
+         * 跳过枚举常量，结束时位于第一个成员之前
+         */
+        private void skipEnumConstants() {
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == ';') {
+                    pos++;
+                    return;
+                }
+                if (c == '}') {
+                    return;
+                }
+                if (c == '@') {
+                    skipAnnotation();
+                } else if (c == '(') {
+                    skipBalanced('(', ')');
+                } else if (c == '{') {
+                    skipBalanced('{', '}');
+                } else if (c == '"' || c == '\'') {
+                    skipLiteral();
+                } else {
+                    pos++;
+                }
+            }
+            throw new IllegalStateException("Unexpected end of enum body");
+        }
+
+        /**
+         * record是上下文关键字，只有 record Name( 或 record Name< 才是类型声明
+         */
+        private boolean isRecordDeclaration() {
+            int start = pos;
+            try {
+                if (!skipTrivia() || readIdentifier().isEmpty() || !skipTrivia()) {
+                    return false;
+                }
+                char c = src.charAt(pos);
+                return c == '(' || c == '<';
+            } finally {
+                pos = start;
+            }
+        }
+
+        /**
+         * 跳过空白和注释
+         *
+         * @return 是否还有内容
+         */
+        private boolean skipTrivia() {
+            while (pos < len) {
+                char c = src.charAt(pos);
+                if (Character.isWhitespace(c)) {
+                    pos++;
+                } else if (c == '/' && pos + 1 < len && src.charAt(pos + 1) == '/') {
+                    while (pos < len && src.charAt(pos) != '\n') {
+                        pos++;
+                    }
+                } else if (c == '/' && pos + 1 < len && src.charAt(pos + 1) == '*') {
+                    int end = src.indexOf("*/", pos + 2);
+                    if (end == -1) {
+                        throw new IllegalStateException("Unterminated comment");
+                    }
+                    pos = end + 2;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * 跳过字面量，当前位置在起始引号上
+         */
+        private void skipLiteral() {
+            char quote = src.charAt(pos);
+            if (quote == '"' && src.startsWith("\"\"\"", pos)) {
+                pos += 3;
+                while (pos < len) {
+                    if (src.charAt(pos) == '\\') {
+                        pos += 2;
+                    } else if (src.startsWith("\"\"\"", pos)) {
+                        pos += 3;
+                        return;
+                    } else {
+                        pos++;
+                    }
+                }
+                throw new IllegalStateException("Unterminated text block");
+            }
+            pos++;
+            while (pos < len) {
+                char c = src.charAt(pos);
+                if (c == '\\') {
+                    pos += 2;
+                } else if (c == quote) {
+                    pos++;
+                    return;
+                } else if (c == '\n') {
+                    throw new IllegalStateException("Unterminated literal");
+                } else {
+                    pos++;
+                }
+            }
+            throw new IllegalStateException("Unterminated literal");
+        }
+
+        /**
+         * 跳过配对的括号，当前位置在开括号上，结束时位于对应的闭括号之后
+         */
+        private void skipBalanced(char open, char close) {
+            int depth = 0;
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == '"' || c == '\'') {
+                    skipLiteral();
+                    continue;
+                }
+                pos++;
+                if (c == open) {
+                    depth++;
+                } else if (c == close && --depth == 0) {
+                    return;
+                }
+            }
+            throw new IllegalStateException("Unbalanced '" + open + "'");
+        }
+
+        /**
+         * 跳到指定字符之后，途中跳过配对的括号
+         */
+        private void skipTo(char target) {
+            while (skipTrivia()) {
+                char c = src.charAt(pos);
+                if (c == target) {
+                    pos++;
+                    return;
+                }
+                if (c == '{') {
+                    skipBalanced('{', '}');
+                } else if (c == '(') {
+                    skipBalanced('(', ')');
+                } else if (c == '"' || c == '\'') {
+                    skipLiteral();
+                } else {
+                    pos++;
+                }
+            }
+            throw new IllegalStateException("Missing '" + target + "'");
+        }
+
+        private void skipAnnotation() {
+            pos++;
+            skipTrivia();
+            readQualifiedName();
+            int end = pos;
+            if (skipTrivia() && src.charAt(pos) == '(') {
+                skipBalanced('(', ')');
+            } else {
+                pos = end;
+            }
+        }
+
+        private boolean isTypeKeyword(String word) {
+            return "class".equals(word) || "interface".equals(word) || "enum".equals(word) || "record".equals(word);
+        }
+
+        private boolean isAnnotationType() {
+            int i = pos + 1;
+            while (i < len && Character.isWhitespace(src.charAt(i))) {
+                i++;
+            }
+            return src.startsWith("interface", i)
+                    && (i + 9 == len || !Character.isJavaIdentifierPart(src.charAt(i + 9)));
+        }
+
+        private String readIdentifier() {
+            int start = pos;
+            while (pos < len && Character.isJavaIdentifierPart(src.charAt(pos))) {
+                pos++;
+            }
+            return src.substring(start, pos);
+        }
+
+        /**
+         * 读取限定名，如 com.foo.bar，名称中的空白和注释被忽略
+         */
+        private String readQualifiedName() {
+            StringBuilder sb = new StringBuilder();
+            while (skipTrivia() && Character.isJavaIdentifierStart(src.charAt(pos))) {
+                sb.append(readIdentifier());
+                int end = pos;
+                if (skipTrivia() && src.charAt(pos) == '.' && !src.startsWith("...", pos)) {
+                    sb.append('.');
+                    pos++;
+                } else {
+                    pos = end;
+                    break;
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
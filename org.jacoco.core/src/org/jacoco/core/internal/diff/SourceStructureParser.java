@@ -0,0 +1,40 @@
+package org.jacoco.core.internal.diff;
+
+import java.util.List;
+
+/**
+ * 源文件结构解析，只提取方法级差异需要的信息：包名、类名、方法名、参数类型和方法指纹。
+ * 参数类型统一为去掉泛型、注解和包名后的简单类型名，以逗号分隔，如 String,int[],Entry，
+ * 不同实现对同一源文件的输出一致
+ */
+public interface SourceStructureParser {
+
+    /**
+     * 实现名称，作为差异缓存键的一部分
+     *
+     * @return
+     */
+    String getName();
+
+    /**
+     * 解析源文件中的类及其全部方法，包括内部类和枚举，不包含接口和注解。
+     * 内部类名为 Outer$Inner，构造方法名为 &lt;init&gt;，参数中的类型变量擦除为其上界
+     *
+     * @param source 源码
+     * @return 类信息，先外后内，源文件中没有类时返回空列表
+     * @throws IllegalStateException 源码结构无法识别
+     */
+    List<ClassInfo> parse(String source);
+
+    /**
+     * 解析源文件，类名由文件名决定的语言（如Kotlin顶层函数所在的 FooKt）需要文件路径
+     *
+     * @param path   源文件路径
+     * @param source 源码
+     * @return 类信息，先外后内，源文件中没有类时返回空列表
+     * @throws IllegalStateException 源码结构无法识别
+     */
+    default List<ClassInfo> parse(String path, String source) {
+        return parse(source);
+    }
+}
@@ -12,16 +12,13 @@
  *******************************************************************************/
 package org.jacoco.core.internal.flow;
 
-import org.jacoco.core.analysis.CoverageBuilder;
-import org.jacoco.core.internal.diff.ClassInfo;
-import org.jacoco.core.internal.diff.MethodInfo;
+import org.jacoco.core.internal.diff.DiffIndex;
 import org.jacoco.core.internal.instr.InstrSupport;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.commons.AnalyzerAdapter;
 
-import java.util.List;
-
 /**
  * A {@link org.objectweb.asm.ClassVisitor} that calculates probes for every
  * method.
@@ -40,6 +37,24 @@ public class ClassProbesAdapter extends ClassVisitor
 
     private String name;
 
+    /**
+     * changed methods of this run, <code>null</code> if all methods are
+     * considered
+     */
+    private final DiffIndex runDiffIndex;
+
+    /**
+     * changed methods of the current class, <code>null</code> if all
+     * methods are considered
+     */
+    private DiffIndex diffIndex;
+
+    /**
+     * kind of the current class as defined by {@link DiffIndex}, decides
+     * which synthetic constructor parameters are expected
+     */
+    private int classKind;
+
     /**
      * Creates a new adapter that delegates to the given visitor.
      *
@@ -48,9 +63,24 @@ public class ClassProbesAdapter extends ClassVisitor
      */
     public ClassProbesAdapter(final ClassProbesVisitor cv,
                               final boolean trackFrames) {
+        this(cv, trackFrames, null);
+    }
+
+    /**
+     * Creates a new adapter that delegates to the given visitor and only
+     * calculates probes for changed methods.
+     *
+     * @param cv          instance to delegate to
+     * @param trackFrames if <code>true</code> stackmap frames are tracked and provided
+     * @param diffIndex   changed methods, <code>null</code> or empty if all
+     *                    methods are considered
+     */
+    public ClassProbesAdapter(final ClassProbesVisitor cv,
+                              final boolean trackFrames, final DiffIndex diffIndex) {
         super(InstrSupport.ASM_API_VERSION, cv);
         this.cv = cv;
         this.trackFrames = trackFrames;
+        this.runDiffIndex = diffIndex == null || diffIndex.isEmpty() ? null : diffIndex;
     }
 
     @Override
@@ -61,9 +91,33 @@ public class ClassProbesAdapter extends ClassVisitor
                       final String superName,
                       final String[] interfaces) {
         this.name = name;
+        this.diffIndex = runDiffIndex;
+        this.classKind = (access & Opcodes.ACC_ENUM) != 0 ? DiffIndex.ENUM_CLASS : 0;
         super.visit(version, access, name, signature, superName, interfaces);
     }
 
+    @Override
+    public void visitOuterClass(final String owner, final String name,
+                                final String desc) {
+        classKind |= DiffIndex.LOCAL_CLASS;
+        // 匿名类和局部类跟随其所在的方法
+        if (diffIndex != null && !diffIndex.containsClass(this.name)
+                && diffIndex.containsEnclosingMethod(owner, name, desc)) {
+            diffIndex = null;
+        }
+        super.visitOuterClass(owner, name, desc);
+    }
+
+    @Override
+    public void visitInnerClass(final String name, final String outerName,
+                                final String innerName, final int access) {
+        if (name.equals(this.name) && outerName != null
+                && (access & Opcodes.ACC_STATIC) == 0) {
+            classKind |= DiffIndex.INNER_CLASS;
+        }
+        super.visitInnerClass(name, outerName, innerName, access);
+    }
+
     @Override
     public final MethodVisitor visitMethod(final int access,
                                            final String name,
@@ -71,24 +125,20 @@ public class ClassProbesAdapter extends ClassVisitor
                                            final String signature,
                                            final String[] exceptions) {
         final MethodProbesVisitor methodProbes;
-        final MethodProbesVisitor mv = cv.visitMethod(access, name, desc, signature, exceptions);
-
-        // 标记所有方法
-        /*if (mv == null) {
-			// We need to visit the method in any case, otherwise probe ids
-			// are not reproducible
-			methodProbes = EMPTY_METHOD_PROBES_VISITOR;
-		} else {
-			methodProbes = mv;
-		}*/
-
-        // 标记增量方法
-        if (mv != null && isContainsMethod(name, CoverageBuilder.classInfos)) {
-            methodProbes = mv;
+        // 只标记增量方法，其余方法交给 visitMethodWithoutProbes 处理
+        final MethodProbesVisitor mv;
+        if (isDiffMethod(name, desc)) {
+            mv = cv.visitMethod(access, name, desc, signature, exceptions);
         } else {
+            mv = cv.visitMethodWithoutProbes(access, name, desc, signature, exceptions);
+        }
+
+        if (mv == null) {
             // We need to visit the method in any case, otherwise probe ids
             // are not reproducible
             methodProbes = EMPTY_METHOD_PROBES_VISITOR;
+        } else {
+            methodProbes = mv;
         }
 
         return new MethodSanitizer(null, access, name, desc, signature, exceptions) {
@@ -120,22 +170,9 @@ public class ClassProbesAdapter extends ClassVisitor
         return counter++;
     }
 
-    private boolean isContainsMethod(String currentMethod, List<ClassInfo> classInfos) {
-        if (classInfos == null || classInfos.isEmpty()) {
-            return true;
-        }
-        String currentClassName = name.replaceAll("/", ".");
-        for (ClassInfo classInfo : classInfos) {
-            String className = classInfo.getPackages() + "." + classInfo.getClassName();
-            if (currentClassName.equals(className)) {
-                for (MethodInfo methodInfo : classInfo.getMethodInfos()) {
-                    String methodName = methodInfo.getMethodName();
-                    if (currentMethod.equals(methodName)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    private boolean isDiffMethod(final String methodName,
+                                 final String desc) {
+        return diffIndex == null
+                || diffIndex.containsMethod(this.name, methodName, desc, classKind);
     }
 }
@@ -46,6 +46,32 @@ public abstract class ClassProbesVisitor extends ClassVisitor {
 	public abstract MethodProbesVisitor visitMethod(int access, String name,
 			String desc, String signature, String[] exceptions);
 
+	/**
+	 * Called instead of {@link #visitMethod(int, String, String, String, String[])}
+	 * for methods which are not selected by the diff. Probe ids are still
+	 * allocated for such methods, so the probe ids of all other methods are
+	 * the same as without diff. The default implementation returns
+	 * <code>null</code>, i.e. the method is not processed at all.
+	 *
+	 * @param access
+	 *            the method's access flags
+	 * @param name
+	 *            the method's name
+	 * @param desc
+	 *            the method's descriptor
+	 * @param signature
+	 *            the method's signature, may be <code>null</code>
+	 * @param exceptions
+	 *            the internal names of the method's exception classes, may be
+	 *            <code>null</code>
+	 * @return visitor for the method or <code>null</code>
+	 */
+	public MethodProbesVisitor visitMethodWithoutProbes(final int access,
+			final String name, final String desc, final String signature,
+			final String[] exceptions) {
+		return null;
+	}
+
 	/**
 	 * Reports the total number of encountered probes. For classes this method
 	 * is called just before {@link ClassVisitor#visitEnd()}. For interfaces
@@ -13,17 +13,19 @@ import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.treewalk.AbstractTreeIterator;
 import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.filter.PathSuffixFilter;
+import org.jacoco.core.internal.diff.ChangedClasses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class GitDiff {
-    private static Git git;
-    private static Repository repository;
+    private Git git;
+    private Repository repository;
     private static final String PREFIX = "refs/heads/";
 
     public GitDiff(String projectPath) {
@@ -100,7 +102,7 @@ public class GitDiff {
      * @return Diff DiffEntry list
      */
     public List<DiffEntry> getDiffEntriesByBranch(String baseBranch, String diffBranch) {
-        List<DiffEntry> diffs = null;
+        List<DiffEntry> diffs = new ArrayList<>();
         try {
 
             AbstractTreeIterator baseBranchTree = prepareTreeParserBranch(repository, PREFIX + baseBranch);
@@ -172,6 +174,21 @@ public class GitDiff {
         return notDeleteList;
     }
 
+    /**
+     * 一次性解析两个分支的差异，得到改动（非删除）的源文件及类名集合
+     *
+     * @param baseBranch
+     * @param diffBranch
+     * @return 改动的类集合
+     */
+    public ChangedClasses getChangedClasses(String baseBranch, String diffBranch) {
+        List<String> paths = new ArrayList<>();
+        for (DiffEntry diffEntry : getNotDelete(baseBranch, diffBranch)) {
+            paths.add(diffEntry.getNewPath());
+        }
+        return new ChangedClasses(paths);
+    }
+
     /**
      * 判断是否为diff文件
      *
@@ -14,6 +14,7 @@ package org.jacoco.core.internal.instr;
 
 import org.jacoco.core.internal.flow.ClassProbesVisitor;
 import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.jacoco.core.runtime.ProbeMode;
 import org.objectweb.asm.ClassVisitor;
 import org.objectweb.asm.FieldVisitor;
 import org.objectweb.asm.MethodVisitor;
@@ -25,6 +26,8 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 
 	private final IProbeArrayStrategy probeArrayStrategy;
 
+	private final ProbeMode probeMode;
+
 	private String className;
 
 	/**
@@ -38,8 +41,25 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 	 */
 	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
 			final ClassVisitor cv) {
+		this(probeArrayStrategy, ProbeMode.BOOLEAN, cv);
+	}
+
+	/**
+	 * Emits a instrumented version of this class to the given class visitor.
+	 *
+	 * @param probeArrayStrategy
+	 *            this strategy will be used to access the probe array
+	 * @param probeMode
+	 *            type of the probe array provided by the strategy
+	 * @param cv
+	 *            next delegate in the visitor chain will receive the
+	 *            instrumented class
+	 */
+	public ClassInstrumenter(final IProbeArrayStrategy probeArrayStrategy,
+			final ProbeMode probeMode, final ClassVisitor cv) {
 		super(cv);
 		this.probeArrayStrategy = probeArrayStrategy;
+		this.probeMode = probeMode;
 	}
 
 	@Override
@@ -72,11 +92,33 @@ public class ClassInstrumenter extends ClassProbesVisitor {
 		}
 		final MethodVisitor frameEliminator = new DuplicateFrameEliminator(mv);
 		final ProbeInserter probeVariableInserter = new ProbeInserter(access,
-				name, desc, frameEliminator, probeArrayStrategy);
+				name, desc, frameEliminator, probeArrayStrategy, probeMode);
 		return new MethodInstrumenter(probeVariableInserter,
 				probeVariableInserter);
 	}
 
+	@Override
+	public MethodProbesVisitor visitMethodWithoutProbes(final int access,
+			final String name, final String desc, final String signature,
+			final String[] exceptions) {
+
+		// The probe array strategy may initialize the probe array in the
+		// static initializer, therefore it is always instrumented:
+		if (InstrSupport.CLINIT_NAME.equals(name)) {
+			return visitMethod(access, name, desc, signature, exceptions);
+		}
+
+		InstrSupport.assertNotInstrumented(name, className);
+
+		final MethodVisitor mv = cv.visitMethod(access, name, desc, signature,
+				exceptions);
+
+		if (mv == null) {
+			return null;
+		}
+		return new MethodCopier(mv);
+	}
+
 	@Override
 	public void visitTotalProbeCount(final int count) {
 		probeArrayStrategy.addMembers(cv, count);
@@ -31,6 +31,11 @@ public class CondyProbeArrayStrategy implements IProbeArrayStrategy {
 	 */
 	public static final String B_DESC = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)[Z";
 
+	/**
+	 * Descriptor of the bootstrap method without its return type.
+	 */
+	private static final String B_DESC_PARAMS = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;)";
+
 	private final String className;
 
 	private final boolean isInterface;
@@ -39,6 +44,12 @@ public class CondyProbeArrayStrategy implements IProbeArrayStrategy {
 
 	private final IExecutionDataAccessorGenerator accessorGenerator;
 
+	private final String dataFieldDesc;
+
+	private final String dataType;
+
+	private final String bootstrapDesc;
+
 	CondyProbeArrayStrategy(final String className, final boolean isInterface,
 			final long classId,
 			final IExecutionDataAccessorGenerator accessorGenerator) {
@@ -46,24 +57,28 @@ public class CondyProbeArrayStrategy implements IProbeArrayStrategy {
 		this.isInterface = isInterface;
 		this.classId = classId;
 		this.accessorGenerator = accessorGenerator;
+		this.dataFieldDesc = accessorGenerator.getProbeMode()
+				.getDataFieldDesc();
+		this.dataType = accessorGenerator.getProbeMode().getDataType();
+		this.bootstrapDesc = B_DESC_PARAMS + dataFieldDesc;
 	}
 
 	public int storeInstance(final MethodVisitor mv, final boolean clinit,
 			final int variable) {
 		final Handle bootstrapMethod = new Handle(Opcodes.H_INVOKESTATIC,
-				className, InstrSupport.INITMETHOD_NAME, B_DESC, isInterface);
+				className, InstrSupport.INITMETHOD_NAME, bootstrapDesc, isInterface);
 		// As a workaround for https://bugs.openjdk.java.net/browse/JDK-8216970
 		// constant should have type Object
 		mv.visitLdcInsn(new ConstantDynamic(InstrSupport.DATAFIELD_NAME,
 				"Ljava/lang/Object;", bootstrapMethod));
-		mv.visitTypeInsn(Opcodes.CHECKCAST, "[Z");
+		mv.visitTypeInsn(Opcodes.CHECKCAST, dataType);
 		mv.visitVarInsn(Opcodes.ASTORE, variable);
 		return 1;
 	}
 
 	public void addMembers(final ClassVisitor cv, final int probeCount) {
 		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
-				InstrSupport.INITMETHOD_NAME, B_DESC, null, null);
+				InstrSupport.INITMETHOD_NAME, bootstrapDesc, null, null);
 		final int maxStack = accessorGenerator.generateDataAccessor(classId,
 				className, probeCount, mv);
 		mv.visitInsn(Opcodes.ARETURN);
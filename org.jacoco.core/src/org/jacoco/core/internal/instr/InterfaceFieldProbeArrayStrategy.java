@@ -25,12 +25,6 @@ import org.objectweb.asm.Opcodes;
  */
 class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
-	/**
-	 * Frame stack with a single boolean array.
-	 */
-	private static final Object[] FRAME_STACK_ARRZ = new Object[] {
-			InstrSupport.DATAFIELD_DESC };
-
 	/**
 	 * Empty frame locals.
 	 */
@@ -40,6 +34,10 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 	private final long classId;
 	private final int probeCount;
 	private final IExecutionDataAccessorGenerator accessorGenerator;
+	private final String dataFieldDesc;
+
+	private final String dataType;
+	private final String initMethodDesc;
 
 	private boolean seenClinit = false;
 
@@ -50,6 +48,11 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 		this.classId = classId;
 		this.probeCount = probeCount;
 		this.accessorGenerator = accessorGenerator;
+		this.dataFieldDesc = accessorGenerator.getProbeMode()
+				.getDataFieldDesc();
+		this.dataType = accessorGenerator.getProbeMode().getDataType();
+		this.initMethodDesc = accessorGenerator.getProbeMode()
+				.getInitMethodDesc();
 	}
 
 	public int storeInstance(final MethodVisitor mv, final boolean clinit,
@@ -66,7 +69,7 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 			// Stack[0]: [Z
 
 			mv.visitFieldInsn(Opcodes.PUTSTATIC, className,
-					InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+					InstrSupport.DATAFIELD_NAME, dataFieldDesc);
 
 			// Stack[0]: [Z
 
@@ -76,7 +79,7 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 			return Math.max(maxStack, 2);
 		} else {
 			mv.visitMethodInsn(Opcodes.INVOKESTATIC, className,
-					InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
+					InstrSupport.INITMETHOD_NAME, initMethodDesc,
 					true);
 			mv.visitVarInsn(Opcodes.ASTORE, variable);
 			return 1;
@@ -93,19 +96,19 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
 	private void createDataField(final ClassVisitor cv) {
 		cv.visitField(InstrSupport.DATAFIELD_INTF_ACC,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC, null,
+				InstrSupport.DATAFIELD_NAME, dataFieldDesc, null,
 				null);
 	}
 
 	private void createInitMethod(final ClassVisitor cv, final int probeCount) {
 		final MethodVisitor mv = cv.visitMethod(InstrSupport.INITMETHOD_ACC,
-				InstrSupport.INITMETHOD_NAME, InstrSupport.INITMETHOD_DESC,
+				InstrSupport.INITMETHOD_NAME, initMethodDesc,
 				null, null);
 		mv.visitCode();
 
 		// Load the value of the static data field:
 		mv.visitFieldInsn(Opcodes.GETSTATIC, className,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+				InstrSupport.DATAFIELD_NAME, dataFieldDesc);
 		mv.visitInsn(Opcodes.DUP);
 
 		// Stack[1]: [Z
@@ -125,7 +128,7 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 
 		// Return the class' probe array:
 		mv.visitFrame(Opcodes.F_NEW, 0, FRAME_LOCALS_EMPTY, 1,
-				FRAME_STACK_ARRZ);
+				new Object[] { dataType });
 		mv.visitLabel(alreadyInitialized);
 		mv.visitInsn(Opcodes.ARETURN);
 
@@ -145,7 +148,7 @@ class InterfaceFieldProbeArrayStrategy implements IProbeArrayStrategy {
 		// Stack[0]: [Z
 
 		mv.visitFieldInsn(Opcodes.PUTSTATIC, className,
-				InstrSupport.DATAFIELD_NAME, InstrSupport.DATAFIELD_DESC);
+				InstrSupport.DATAFIELD_NAME, dataFieldDesc);
 
 		mv.visitInsn(Opcodes.RETURN);
 
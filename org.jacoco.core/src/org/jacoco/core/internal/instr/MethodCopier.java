@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.internal.instr;
+
+import org.jacoco.core.internal.flow.IFrame;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+/**
+ * Copies a method without inserting probes. Used for unchanged methods, so
+ * their byte code size and runtime overhead are the same as without
+ * instrumentation. Probe ids are still assigned by
+ * {@link org.jacoco.core.internal.flow.ClassProbesAdapter} exactly like when
+ * all methods are instrumented.
+ */
+class MethodCopier extends MethodProbesVisitor {
+
+	/**
+	 * Creates a new copier.
+	 *
+	 * @param mv
+	 *            visitor to write the method to
+	 */
+	MethodCopier(final MethodVisitor mv) {
+		super(mv);
+	}
+
+	@Override
+	public void visitInsnWithProbe(final int opcode, final int probeId) {
+		mv.visitInsn(opcode);
+	}
+
+	@Override
+	public void visitJumpInsnWithProbe(final int opcode, final Label label,
+			final int probeId, final IFrame frame) {
+		mv.visitJumpInsn(opcode, label);
+	}
+
+	@Override
+	public void visitTableSwitchInsnWithProbes(final int min, final int max,
+			final Label dflt, final Label[] labels, final IFrame frame) {
+		mv.visitTableSwitchInsn(min, max, dflt, labels);
+	}
+
+	@Override
+	public void visitLookupSwitchInsnWithProbes(final Label dflt,
+			final int[] keys, final Label[] labels, final IFrame frame) {
+		mv.visitLookupSwitchInsn(dflt, keys, labels);
+	}
+
+}
@@ -12,6 +12,7 @@
  *******************************************************************************/
 package org.jacoco.core.internal.instr;
 
+import org.jacoco.core.runtime.ProbeMode;
 import org.objectweb.asm.AnnotationVisitor;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
@@ -21,14 +22,18 @@ import org.objectweb.asm.TypePath;
 
 /**
  * Internal utility to add probes into the control flow of a method. The code
- * for a probe simply sets a certain slot of a boolean array to true. In
- * addition the probe array has to be retrieved at the beginning of the method
- * and stored in a local variable.
+ * for a probe simply sets a certain slot of a boolean array to true, or
+ * increments a slot of a long array in {@link ProbeMode#COUNT}, or sets a byte
+ * of a buffer in {@link ProbeMode#MAPPED}. In addition the
+ * probe array has to be retrieved at the beginning of the method and stored in
+ * a local variable.
  */
 class ProbeInserter extends MethodVisitor implements IProbeInserter {
 
 	private final IProbeArrayStrategy arrayStrategy;
 
+	private final ProbeMode probeMode;
+
 	/**
 	 * <code>true</code> if method is a class or interface initialization
 	 * method.
@@ -58,9 +63,33 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 	 */
 	ProbeInserter(final int access, final String name, final String desc,
 			final MethodVisitor mv, final IProbeArrayStrategy arrayStrategy) {
+		this(access, name, desc, mv, arrayStrategy, ProbeMode.BOOLEAN);
+	}
+
+	/**
+	 * Creates a new {@link ProbeInserter}.
+	 *
+	 * @param access
+	 *            access flags of the adapted method
+	 * @param name
+	 *            the method's name
+	 * @param desc
+	 *            the method's descriptor
+	 * @param mv
+	 *            the method visitor to which this adapter delegates calls
+	 * @param arrayStrategy
+	 *            callback to create the code that retrieves the reference to
+	 *            the probe array
+	 * @param probeMode
+	 *            type of the probe array
+	 */
+	ProbeInserter(final int access, final String name, final String desc,
+			final MethodVisitor mv, final IProbeArrayStrategy arrayStrategy,
+			final ProbeMode probeMode) {
 		super(InstrSupport.ASM_API_VERSION, mv);
 		this.clinit = InstrSupport.CLINIT_NAME.equals(name);
 		this.arrayStrategy = arrayStrategy;
+		this.probeMode = probeMode;
 		int pos = (Opcodes.ACC_STATIC & access) == 0 ? 1 : 0;
 		for (final Type t : Type.getArgumentTypes(desc)) {
 			pos += t.getSize();
@@ -69,6 +98,14 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 	}
 
 	public void insertProbe(final int id) {
+		if (probeMode == ProbeMode.COUNT) {
+			insertCountProbe(id);
+			return;
+		}
+		if (probeMode == ProbeMode.MAPPED) {
+			insertBufferProbe(id);
+			return;
+		}
 
 		// For a probe we set the corresponding position in the boolean[] array
 		// to true.
@@ -91,6 +128,68 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 		mv.visitInsn(Opcodes.BASTORE);
 	}
 
+	private void insertCountProbe(final int id) {
+
+		// For a probe we increment the corresponding position in the long[]
+		// array. Concurrent increments are not synchronized and may be lost.
+
+		mv.visitVarInsn(Opcodes.ALOAD, variable);
+
+		// Stack[0]: [J
+
+		InstrSupport.push(mv, id);
+
+		// Stack[1]: I
+		// Stack[0]: [J
+
+		mv.visitInsn(Opcodes.DUP2);
+
+		// Stack[3]: I
+		// Stack[2]: [J
+		// Stack[1]: I
+		// Stack[0]: [J
+
+		mv.visitInsn(Opcodes.LALOAD);
+
+		// Stack[2]: J
+		// Stack[1]: I
+		// Stack[0]: [J
+
+		mv.visitInsn(Opcodes.LCONST_1);
+
+		// Stack[3]: J
+		// Stack[2]: J
+		// Stack[1]: I
+		// Stack[0]: [J
+
+		mv.visitInsn(Opcodes.LADD);
+		mv.visitInsn(Opcodes.LASTORE);
+	}
+
+	private void insertBufferProbe(final int id) {
+
+		// For a probe we set the corresponding byte of the ByteBuffer to 1.
+
+		mv.visitVarInsn(Opcodes.ALOAD, variable);
+
+		// Stack[0]: Ljava/nio/ByteBuffer;
+
+		InstrSupport.push(mv, id);
+
+		// Stack[1]: I
+		// Stack[0]: Ljava/nio/ByteBuffer;
+
+		mv.visitInsn(Opcodes.ICONST_1);
+
+		// Stack[2]: I
+		// Stack[1]: I
+		// Stack[0]: Ljava/nio/ByteBuffer;
+
+		mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/nio/ByteBuffer", "put",
+				"(IB)Ljava/nio/ByteBuffer;", false);
+		mv.visitInsn(Opcodes.POP);
+	}
+
 	@Override
 	public void visitCode() {
 		accessorStackSize = arrayStrategy.storeInstance(mv, clinit, variable);
@@ -128,11 +227,14 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 
 	@Override
 	public void visitMaxs(final int maxStack, final int maxLocals) {
-		// Max stack size of the probe code is 3 which can add to the
-		// original stack size depending on the probe locations. The accessor
-		// stack size is an absolute maximum, as the accessor code is inserted
-		// at the very beginning of each method when the stack size is empty.
-		final int increasedStack = Math.max(maxStack + 3, accessorStackSize);
+		// Max stack size of the probe code is 3 (6 for counting probes) which
+		// can add to the original stack size depending on the probe locations.
+		// The accessor stack size is an absolute maximum, as the accessor code
+		// is inserted at the very beginning of each method when the stack size
+		// is empty.
+		final int probeStack = probeMode == ProbeMode.COUNT ? 6 : 3;
+		final int increasedStack = Math.max(maxStack + probeStack,
+				accessorStackSize);
 		mv.visitMaxs(increasedStack, maxLocals + 1);
 	}
 
@@ -159,7 +261,7 @@ class ProbeInserter extends MethodVisitor implements IProbeInserter {
 		int pos = 0; // Current variable position
 		while (idx < nLocal || pos <= variable) {
 			if (pos == variable) {
-				newLocal[newIdx++] = InstrSupport.DATAFIELD_DESC;
+				newLocal[newIdx++] = probeMode.getDataType();
 				pos++;
 			} else {
 				if (idx < nLocal) {
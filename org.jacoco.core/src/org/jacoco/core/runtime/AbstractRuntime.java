@@ -22,13 +22,24 @@ public abstract class AbstractRuntime implements IRuntime {
 	/** access to the runtime data */
 	protected RuntimeData data;
 
+	private ProbeMode probeMode = ProbeMode.BOOLEAN;
+
 	/**
 	 * Subclasses must call this method when overwriting it.
 	 */
 	public void startup(final RuntimeData data) throws Exception {
+		data.setProbeMode(probeMode);
 		this.data = data;
 	}
 
+	public void setProbeMode(final ProbeMode probeMode) {
+		this.probeMode = probeMode;
+	}
+
+	public ProbeMode getProbeMode() {
+		return probeMode;
+	}
+
 	private static final Random RANDOM = new Random();
 
 	/**
@@ -137,6 +137,14 @@ public final class AgentOptions {
          */
         tcpserver,
 
+        /**
+         * Value for the {@link AgentOptions#OUTPUT} parameter: Like
+         * {@link #tcpserver}, but serves any number of concurrent clients
+         * with non-blocking IO. Dumps requested at the same time are only
+         * collected once.
+         */
+        tcpmultiserver,
+
         /**
          * Value for the {@link AgentOptions#OUTPUT} parameter: At startup the
          * agent connects to a TCP port specified by the
@@ -189,6 +197,62 @@ public final class AgentOptions {
      */
     public static final String JMX = "jmx";
 
+    /**
+     * Specifies a diff manifest written by the <code>diff</code> command of the
+     * command line interface. When specified only the changed classes and
+     * methods listed in the manifest are instrumented. Default is
+     * <code>null</code> (all classes).
+     */
+    public static final String DIFFMANIFEST = "diffmanifest";
+
+    /**
+     * Specifies what the probes record: <code>boolean</code> only records
+     * whether code has been executed, <code>count</code> records how often it
+     * has been executed, <code>mapped</code> records whether code has been
+     * executed in a memory mapped file given by {@link #PROBEFILE}, which
+     * survives a crash of the VM. The <code>mapped</code> mode can't be
+     * combined with {@link #INCLBOOTSTRAPCLASSES}, as its probes call into the
+     * instrumented bootstrap classes. Default is <code>boolean</code>.
+     *
+     * @see ProbeMode
+     */
+    public static final String PROBEMODE = "probemode";
+
+    /**
+     * Specifies the memory mapped probe file used in the probe mode
+     * <code>mapped</code>. With {@link #APPEND} the probes of the previous runs
+     * are kept. The file can be converted to an exec file with the
+     * <code>merge</code> command. Default is <code>jacoco.probes</code>.
+     */
+    public static final String PROBEFILE = "probefile";
+
+    /**
+     * Default value for the "probefile" agent option.
+     */
+    public static final String DEFAULT_PROBEFILE = "jacoco.probes";
+
+    /**
+     * Specifies the interval in seconds in which the agent periodically writes
+     * a snapshot of the coverage data to the file system, independently of the
+     * output mode. A killed VM loses at most the data of one interval. Default
+     * is <code>0</code> (no periodic dumps).
+     */
+    public static final String DUMPINTERVAL = "dumpinterval";
+
+    /**
+     * Specifies whether periodic dumps are written to separate files named
+     * after the destination file and a timestamp instead of replacing the
+     * destination file. Default is <code>false</code>.
+     */
+    public static final String DUMPROTATE = "dumprotate";
+
+    /**
+     * Specifies the maximum number of files kept when periodic dumps are
+     * rotated, older files are deleted. Default is <code>0</code> (all files
+     * are kept).
+     */
+    public static final String DUMPMAXFILES = "dumpmaxfiles";
+
     // baseBranch
     public static final String BASEBRANCH = "baseBranch";
 
@@ -199,7 +263,8 @@ public final class AgentOptions {
     private static final Collection<String> VALID_OPTIONS = Arrays.asList(
             DESTFILE, APPEND, INCLUDES, EXCLUDES, EXCLCLASSLOADER,
             INCLBOOTSTRAPCLASSES, INCLNOLOCATIONCLASSES, SESSIONID, DUMPONEXIT,
-            OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX, BASEBRANCH, DIFFBRANCH);
+            OUTPUT, ADDRESS, PORT, CLASSDUMPDIR, JMX, BASEBRANCH, DIFFBRANCH,
+            DIFFMANIFEST, PROBEMODE, PROBEFILE, DUMPINTERVAL, DUMPROTATE, DUMPMAXFILES);
 
     private final Map<String, String> options;
 
@@ -257,6 +322,9 @@ public final class AgentOptions {
     private void validateAll() {
         validatePort(getPort());
         getOutput();
+        validateProbeMode(getProbeMode());
+        validateNotNegative(DUMPINTERVAL, getDumpInterval());
+        validateNotNegative(DUMPMAXFILES, getDumpMaxFiles());
     }
 
     private void validatePort(final int port) {
@@ -265,6 +333,23 @@ public final class AgentOptions {
         }
     }
 
+    private void validateProbeMode(final ProbeMode probeMode) {
+        // Probes in mapped mode call ByteBuffer.put(), which would call its
+        // own probes again if java.nio is instrumented
+        if (probeMode == ProbeMode.MAPPED && getInclBootstrapClasses()) {
+            throw new IllegalArgumentException(format(
+                    "%s=mapped can't be used with %s", PROBEMODE,
+                    INCLBOOTSTRAPCLASSES));
+        }
+    }
+
+    private void validateNotNegative(final String key, final int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException(
+                    format("%s must not be negative", key));
+        }
+    }
+
     public String getBaseBranch() {
         return getOption(BASEBRANCH, "");
     }
@@ -447,6 +532,81 @@ public final class AgentOptions {
         setOption(DUMPONEXIT, dumpOnExit);
     }
 
+    /**
+     * Returns the location of the memory mapped probe file.
+     *
+     * @return probe file location
+     */
+    public String getProbeFile() {
+        return getOption(PROBEFILE, DEFAULT_PROBEFILE);
+    }
+
+    /**
+     * Sets the location of the memory mapped probe file.
+     *
+     * @param probeFile probe file location
+     */
+    public void setProbeFile(final String probeFile) {
+        setOption(PROBEFILE, probeFile);
+    }
+
+    /**
+     * Returns the interval of periodic dumps.
+     *
+     * @return interval in seconds, <code>0</code> if disabled
+     */
+    public int getDumpInterval() {
+        return getOption(DUMPINTERVAL, 0);
+    }
+
+    /**
+     * Sets the interval of periodic dumps.
+     *
+     * @param dumpInterval interval in seconds, <code>0</code> to disable
+     */
+    public void setDumpInterval(final int dumpInterval) {
+        validateNotNegative(DUMPINTERVAL, dumpInterval);
+        setOption(DUMPINTERVAL, dumpInterval);
+    }
+
+    /**
+     * Returns whether periodic dumps are written to separate files.
+     *
+     * @return <code>true</code> if every periodic dump creates a new file
+     */
+    public boolean getDumpRotate() {
+        return getOption(DUMPROTATE, false);
+    }
+
+    /**
+     * Sets whether periodic dumps are written to separate files.
+     *
+     * @param dumpRotate <code>true</code> if every periodic dump should create
+     *                   a new file
+     */
+    public void setDumpRotate(final boolean dumpRotate) {
+        setOption(DUMPROTATE, dumpRotate);
+    }
+
+    /**
+     * Returns the maximum number of rotated dump files kept.
+     *
+     * @return maximum number of files, <code>0</code> for no limit
+     */
+    public int getDumpMaxFiles() {
+        return getOption(DUMPMAXFILES, 0);
+    }
+
+    /**
+     * Sets the maximum number of rotated dump files kept.
+     *
+     * @param dumpMaxFiles maximum number of files, <code>0</code> for no limit
+     */
+    public void setDumpMaxFiles(final int dumpMaxFiles) {
+        validateNotNegative(DUMPMAXFILES, dumpMaxFiles);
+        setOption(DUMPMAXFILES, dumpMaxFiles);
+    }
+
     /**
      * Returns the port on which to listen to when the output is
      * <code>tcpserver</code> or the port to connect to when output is
@@ -538,6 +698,42 @@ public final class AgentOptions {
         setOption(CLASSDUMPDIR, location);
     }
 
+    /**
+     * Returns the location of the diff manifest.
+     *
+     * @return diff manifest location or <code>null</code> (all classes)
+     */
+    public String getDiffManifest() {
+        return getOption(DIFFMANIFEST, null);
+    }
+
+    /**
+     * Sets the location of the diff manifest.
+     *
+     * @param location diff manifest location or <code>null</code> (all classes)
+     */
+    public void setDiffManifest(final String location) {
+        setOption(DIFFMANIFEST, location);
+    }
+
+    /**
+     * Returns what the probes record.
+     *
+     * @return probe mode
+     */
+    public ProbeMode getProbeMode() {
+        return ProbeMode.parse(getOption(PROBEMODE, ProbeMode.BOOLEAN.name()));
+    }
+
+    /**
+     * Sets what the probes record.
+     *
+     * @param probeMode probe mode
+     */
+    public void setProbeMode(final ProbeMode probeMode) {
+        setOption(PROBEMODE, probeMode.name().toLowerCase());
+    }
+
     /**
      * Returns whether the agent exposes functionality via JMX.
      *
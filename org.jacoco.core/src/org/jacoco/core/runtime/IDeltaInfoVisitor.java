@@ -0,0 +1,41 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.IOException;
+
+/**
+ * Interface for the delta info of a response to a delta dump command. The
+ * delta info is sent before the session info and execution data of the
+ * response.
+ */
+public interface IDeltaInfoVisitor {
+
+	/**
+	 * Provides the delta info of a delta dump.
+	 *
+	 * @param sequence
+	 *            sequence number of this dump, to be sent back as the
+	 *            baseline of the next delta dump
+	 * @param full
+	 *            <code>true</code> if the requested baseline is not known
+	 *            anymore and the response contains all execution data, which
+	 *            replaces the data the receiver has collected so far;
+	 *            <code>false</code> if the response only contains the classes
+	 *            changed since the baseline
+	 * @throws IOException
+	 *             in case of problems writing the response
+	 */
+	void visitDeltaInfo(long sequence, boolean full) throws IOException;
+
+}
@@ -30,8 +30,9 @@ public interface IExecutionDataAccessorGenerator {
 	 * initialization. This method can be called at any time even outside the
 	 * target VM.
 	 *
-	 * The generated code must push a <code>boolean[]</code> instance to the
-	 * operand stack. Except this result object the generated code must not make
+	 * The generated code must push a <code>boolean[]</code> instance (a
+	 * <code>long[]</code> instance in {@link ProbeMode#COUNT}) to the operand
+	 * stack. Except this result object the generated code must not make
 	 * any assumptions about the structure of the embedding method or class. The
 	 * generated code must not use or allocate local variables.
 	 *
@@ -49,4 +50,15 @@ public interface IExecutionDataAccessorGenerator {
 	int generateDataAccessor(long classid, String classname, int probecount,
 			MethodVisitor mv);
 
+	/**
+	 * Returns the type of the probe arrays obtained by the generated code:
+	 * <code>boolean[]</code> for {@link ProbeMode#BOOLEAN},
+	 * <code>long[]</code> for {@link ProbeMode#COUNT} and
+	 * {@link java.nio.ByteBuffer} for {@link ProbeMode#MAPPED}. The instrumentation
+	 * process emits probes for this type.
+	 *
+	 * @return probe mode of the generated code
+	 */
+	ProbeMode getProbeMode();
+
 }
@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.IOException;
+
+/**
+ * Optional extension of {@link IRemoteCommandVisitor} for runtimes which
+ * support delta dumps. {@link RemoteControlReader} answers delta dump commands
+ * to other visitors with a regular dump.
+ */
+public interface IRemoteDeltaCommandVisitor extends IRemoteCommandVisitor {
+
+	/**
+	 * Requests a dump of only the classes whose execution data has changed
+	 * since the dump with the given sequence number, with an optional reset.
+	 * The response starts with a delta info, see {@link IDeltaInfoVisitor}.
+	 *
+	 * @param baseline
+	 *            sequence number of the last delta dump received by the
+	 *            requester or 0 for a full dump
+	 * @param reset
+	 *            <code>true</code> if the reset should be executed
+	 * @throws IOException
+	 *             in case of problems with the remote connection
+	 */
+	void visitDeltaDumpCommand(long baseline, boolean reset)
+			throws IOException;
+
+}
@@ -18,6 +18,16 @@ package org.jacoco.core.runtime;
  */
 public interface IRuntime extends IExecutionDataAccessorGenerator {
 
+	/**
+	 * Sets the type of probe arrays provided by this runtime. Must be called
+	 * before {@link #startup(RuntimeData)} and before classes are
+	 * instrumented.
+	 *
+	 * @param probeMode
+	 *            probe mode for all instrumented classes
+	 */
+	void setProbeMode(ProbeMode probeMode);
+
 	/**
 	 * Starts the coverage runtime. This method MUST be called before any class
 	 * instrumented for this runtime is loaded.
@@ -67,7 +67,8 @@ public class InjectedClassRuntime extends AbstractRuntime {
 		mv.visitFieldInsn(Opcodes.GETSTATIC, injectedClassName, FIELD_NAME,
 				FIELD_TYPE);
 
-		RuntimeData.generateAccessCall(classid, classname, probecount, mv);
+		RuntimeData.generateAccessCall(classid, classname, probecount,
+				getProbeMode(), mv);
 
 		return 6;
 	}
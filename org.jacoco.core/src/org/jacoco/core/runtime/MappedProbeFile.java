@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Probe file of {@link ProbeMode#MAPPED}. The probes of each class are a
+ * memory mapped region of this file which instrumented code writes to
+ * directly. The operating system writes the regions back to disk, so the data
+ * survives if the process is killed. A dump only needs to call
+ * {@link #sync(SessionInfo)}.
+ *
+ * The file starts with a header of fixed length (magic number, version, end
+ * of the committed entries and session info), followed by one entry per class
+ * in the order of their initialization: class id (<code>long</code>), probe
+ * count (<code>int</code>), length of the class name (<code>short</code>),
+ * UTF-8 class name and one byte per probe. The end offset in the header is
+ * only updated after an entry has been completely written, so a crash can
+ * only lose the last uncommitted entry. A file can only be opened by one
+ * process at a time.
+ */
+public class MappedProbeFile {
+
+	/**
+	 * Magic number at the beginning of the file, differs from the first byte
+	 * of exec files.
+	 */
+	public static final int MAGIC_NUMBER = 0x4A434D50;
+
+	/** File format version, will be incremented for each incompatible change. */
+	public static final char FORMAT_VERSION = 0x0001;
+
+	private static final int HEADER_SIZE = 4096;
+
+	private static final int END_OFFSET = 8;
+
+	private static final int START_OFFSET = 16;
+
+	private static final int DUMP_OFFSET = 24;
+
+	private static final int SESSION_OFFSET = 32;
+
+	private static final int MAX_SESSION_LENGTH = HEADER_SIZE - SESSION_OFFSET
+			- 2;
+
+	/** number of bytes of an entry before the class name */
+	private static final int ENTRY_HEADER_SIZE = 14;
+
+	/** minimum length mapped when the file is extended */
+	private static final int REGION_SIZE = 1 << 20;
+
+	private static final String ENCODING = "UTF-8";
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private final FileLock lock;
+
+	private final MappedByteBuffer header;
+
+	private final List<MappedByteBuffer> regions = new ArrayList<MappedByteBuffer>();
+
+	/** allocated probe regions by class id */
+	private final Map<Long, ByteBuffer> probes = new HashMap<Long, ByteBuffer>();
+
+	private MappedByteBuffer region;
+
+	private long regionStart;
+
+	private long end;
+
+	private MappedProbeFile(final File destFile, final boolean append)
+			throws IOException {
+		file = new RandomAccessFile(destFile, "rw");
+		channel = file.getChannel();
+		lock = channel.tryLock();
+		if (lock == null) {
+			file.close();
+			throw new IOException(String.format(
+					"Probe file %s is used by another process.", destFile));
+		}
+		if (!append) {
+			file.setLength(0);
+		}
+		final boolean exists = file.length() > 0;
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		if (exists) {
+			checkHeader(header);
+			end = header.getLong(END_OFFSET);
+			mapExistingEntries();
+		} else {
+			header.putInt(0, MAGIC_NUMBER);
+			header.putChar(4, FORMAT_VERSION);
+			end = HEADER_SIZE;
+			header.putLong(END_OFFSET, end);
+		}
+	}
+
+	/**
+	 * Opens the given probe file and creates it if it does not exist.
+	 *
+	 * @param file
+	 *            probe file
+	 * @param append
+	 *            if <code>true</code> the existing entries are kept and the
+	 *            same class keeps using its existing region
+	 * @return opened probe file
+	 * @throws IOException
+	 *             if the file can't be opened, has an invalid format or is
+	 *             used by another process
+	 */
+	public static MappedProbeFile open(final File file, final boolean append)
+			throws IOException {
+		final File folder = file.getAbsoluteFile().getParentFile();
+		if (folder != null) {
+			folder.mkdirs();
+		}
+		return new MappedProbeFile(file, append);
+	}
+
+	private void mapExistingEntries() throws IOException {
+		if (end == HEADER_SIZE) {
+			return;
+		}
+		regionStart = HEADER_SIZE;
+		region = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE,
+				end - HEADER_SIZE);
+		regions.add(region);
+		int pos = 0;
+		while (pos < region.capacity()) {
+			final long id = region.getLong(pos);
+			final int probecount = region.getInt(pos + 8);
+			final int nameLength = region.getShort(pos + 12);
+			final int start = pos + ENTRY_HEADER_SIZE + nameLength;
+			probes.put(Long.valueOf(id), slice(region, start, probecount));
+			pos = start + probecount;
+		}
+	}
+
+	/**
+	 * Returns the probe region of a class. If the class has no region yet a
+	 * new region is allocated at the end of the file, all probes of a new
+	 * region are 0.
+	 *
+	 * @param id
+	 *            class id
+	 * @param name
+	 *            VM name of the class
+	 * @param probecount
+	 *            number of probes
+	 * @return buffer with one byte per probe
+	 * @throws IOException
+	 *             if the file can't be extended
+	 */
+	public synchronized ByteBuffer allocate(final long id, final String name,
+			final int probecount) throws IOException {
+		final Long key = Long.valueOf(id);
+		final ByteBuffer existing = probes.get(key);
+		if (existing != null) {
+			if (existing.capacity() != probecount) {
+				throw new IllegalStateException(String.format(
+						"Incompatible execution data for class %s with id %016x.",
+						name, key));
+			}
+			return existing;
+		}
+		final byte[] nameBytes = name.getBytes(ENCODING);
+		final int size = ENTRY_HEADER_SIZE + nameBytes.length + probecount;
+		if (region == null || end + size > regionStart + region.capacity()) {
+			regionStart = end;
+			region = channel.map(FileChannel.MapMode.READ_WRITE, end,
+					Math.max(REGION_SIZE, size));
+			regions.add(region);
+		}
+		final int pos = (int) (end - regionStart);
+		region.putLong(pos, id);
+		region.putInt(pos + 8, probecount);
+		region.putShort(pos + 12, (short) nameBytes.length);
+		final ByteBuffer nameBuffer = region.duplicate();
+		nameBuffer.position(pos + ENTRY_HEADER_SIZE);
+		nameBuffer.put(nameBytes);
+		final ByteBuffer buffer = slice(region,
+				pos + ENTRY_HEADER_SIZE + nameBytes.length, probecount);
+		// Only commit the entry once it is complete
+		end += size;
+		header.putLong(END_OFFSET, end);
+		probes.put(key, buffer);
+		return buffer;
+	}
+
+	private static ByteBuffer slice(final ByteBuffer buffer, final int start,
+			final int length) {
+		final ByteBuffer copy = buffer.duplicate();
+		copy.position(start);
+		copy.limit(start + length);
+		return copy.slice();
+	}
+
+	/**
+	 * Writes the mapped regions back to disk and records the given session
+	 * info in the header.
+	 *
+	 * @param info
+	 *            current session info
+	 * @throws IOException
+	 *             if the header can't be written
+	 */
+	public synchronized void sync(final SessionInfo info) throws IOException {
+		for (final MappedByteBuffer r : regions) {
+			r.force();
+		}
+		String id = info.getId();
+		// UTF-8 takes at most 3 bytes per char
+		if (id.length() > MAX_SESSION_LENGTH / 3) {
+			id = id.substring(0, MAX_SESSION_LENGTH / 3);
+		}
+		final byte[] session = id.getBytes(ENCODING);
+		header.putLong(START_OFFSET, info.getStartTimeStamp());
+		header.putLong(DUMP_OFFSET, info.getDumpTimeStamp());
+		header.putShort(SESSION_OFFSET, (short) session.length);
+		final ByteBuffer sessionBuffer = header.duplicate();
+		sessionBuffer.position(SESSION_OFFSET + 2);
+		sessionBuffer.put(session);
+		header.force();
+	}
+
+	/**
+	 * Releases the file lock and closes the file. The mapped regions stay
+	 * valid until they are garbage collected, probes written afterwards are
+	 * still written back to disk.
+	 *
+	 * @throws IOException
+	 *             if the file can't be closed
+	 */
+	public synchronized void close() throws IOException {
+		lock.release();
+		file.close();
+	}
+
+	/**
+	 * Checks whether the given data starts with the magic number of probe
+	 * files.
+	 *
+	 * @param head
+	 *            at least the first 4 bytes of a file
+	 * @return <code>true</code> if the data is the beginning of a probe file
+	 */
+	public static boolean isProbeFile(final byte[] head) {
+		return head.length >= 4
+				&& ByteBuffer.wrap(head).getInt(0) == MAGIC_NUMBER;
+	}
+
+	/**
+	 * Reads a probe file, whose process may still be running or may have
+	 * crashed, and converts it to execution data. Only classes with at least
+	 * one executed probe are reported.
+	 *
+	 * @param file
+	 *            probe file
+	 * @param executionDataVisitor
+	 *            visitor for the execution data of each class
+	 * @param sessionInfoVisitor
+	 *            visitor for the session info recorded in the header, which
+	 *            is only reported if the file has been synced
+	 * @throws IOException
+	 *             if the file can't be read or has an invalid format
+	 */
+	public static void read(final File file,
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor) throws IOException {
+		final ByteBuffer content;
+		final RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			final FileChannel channel = input.getChannel();
+			content = ByteBuffer.allocate((int) channel.size());
+			while (content.hasRemaining() && channel.read(content) != -1) {
+			}
+		} finally {
+			input.close();
+		}
+		if (content.capacity() < HEADER_SIZE) {
+			throw new IOException("Invalid probe file.");
+		}
+		checkHeader(content);
+		final long end = content.getLong(END_OFFSET);
+		if (end > content.capacity()) {
+			throw new IOException("Truncated probe file.");
+		}
+		final int sessionLength = content.getShort(SESSION_OFFSET);
+		if (sessionLength > 0) {
+			final String id = decode(content, SESSION_OFFSET + 2,
+					sessionLength);
+			sessionInfoVisitor.visitSessionInfo(
+					new SessionInfo(id, content.getLong(START_OFFSET),
+							content.getLong(DUMP_OFFSET)));
+		}
+		int pos = HEADER_SIZE;
+		while (pos < end) {
+			final long id = content.getLong(pos);
+			final int probecount = content.getInt(pos + 8);
+			final int nameLength = content.getShort(pos + 12);
+			final String name = decode(content, pos + ENTRY_HEADER_SIZE,
+					nameLength);
+			pos += ENTRY_HEADER_SIZE + nameLength;
+			final boolean[] data = new boolean[probecount];
+			boolean hit = false;
+			for (int i = 0; i < probecount; i++) {
+				data[i] = content.get(pos + i) != 0;
+				hit |= data[i];
+			}
+			pos += probecount;
+			if (hit) {
+				executionDataVisitor
+						.visitClassExecution(new ExecutionData(id, name, data));
+			}
+		}
+	}
+
+	private static void checkHeader(final ByteBuffer header)
+			throws IOException {
+		if (header.getInt(0) != MAGIC_NUMBER) {
+			throw new IOException("Invalid probe file.");
+		}
+		if (header.getChar(4) != FORMAT_VERSION) {
+			throw new IOException(
+					String.format("Unsupported probe file version %x.",
+							Integer.valueOf(header.getChar(4))));
+		}
+	}
+
+	private static String decode(final ByteBuffer buffer, final int start,
+			final int length) throws UnsupportedEncodingException {
+		final byte[] bytes = new byte[length];
+		for (int i = 0; i < length; i++) {
+			bytes[i] = buffer.get(start + i);
+		}
+		return new String(bytes, ENCODING);
+	}
+
+}
@@ -77,7 +77,8 @@ public class ModifiedSystemClassRuntime extends AbstractRuntime {
 		mv.visitFieldInsn(Opcodes.GETSTATIC, systemClassName, accessFieldName,
 				ACCESS_FIELD_TYPE);
 
-		RuntimeData.generateAccessCall(classid, classname, probecount, mv);
+		RuntimeData.generateAccessCall(classid, classname, probecount,
+				getProbeMode(), mv);
 
 		return 6;
 	}
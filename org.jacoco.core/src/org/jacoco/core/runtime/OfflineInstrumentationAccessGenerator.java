@@ -56,4 +56,11 @@ public class OfflineInstrumentationAccessGenerator
 		return 4;
 	}
 
+	/**
+	 * Offline instrumented classes always use <code>boolean[]</code> probes.
+	 */
+	public ProbeMode getProbeMode() {
+		return ProbeMode.BOOLEAN;
+	}
+
 }
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2009, 2020 Mountainminds GmbH & Co. KG and Contributors
+ * This program and the accompanying materials are made available under
+ * the terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *    Marc R. Hoffmann - initial API and implementation
+ *
+ *******************************************************************************/
+package org.jacoco.core.runtime;
+
+/**
+ * Data recorded by probes: whether they have been executed or how often. The
+ * mode determines the type of the probe array in instrumented code, the
+ * execution data created by the runtime and the blocks written to exec files.
+ */
+public enum ProbeMode {
+
+	/**
+	 * Probes are a <code>boolean[]</code> and only record whether they have
+	 * been executed.
+	 */
+	BOOLEAN("[Z"),
+
+	/**
+	 * Probes are a <code>long[]</code> and count executions. Counters are
+	 * incremented without synchronization, so concurrent executions may be
+	 * lost, but a counter never goes out of bounds.
+	 */
+	COUNT("[J", "[J"),
+
+	/**
+	 * Probes are a {@link java.nio.ByteBuffer} with one byte per probe and
+	 * only record whether they have been executed. The buffer can be mapped
+	 * to a file (see {@link MappedProbeFile}) so the data survives a crash of
+	 * the VM.
+	 */
+	MAPPED("Ljava/nio/ByteBuffer;", "java/nio/ByteBuffer");
+
+	private final String dataFieldDesc;
+
+	private final String dataType;
+
+	ProbeMode(final String dataFieldDesc) {
+		this(dataFieldDesc, dataFieldDesc);
+	}
+
+	ProbeMode(final String dataFieldDesc, final String dataType) {
+		this.dataFieldDesc = dataFieldDesc;
+		this.dataType = dataType;
+	}
+
+	/**
+	 * Returns the type descriptor of the probe array.
+	 *
+	 * @return <code>[Z</code>, <code>[J</code> or
+	 *         <code>Ljava/nio/ByteBuffer;</code>
+	 */
+	public String getDataFieldDesc() {
+		return dataFieldDesc;
+	}
+
+	/**
+	 * Returns the internal type name of the probe array as used in
+	 * <code>CHECKCAST</code> instructions and stackmap frames.
+	 *
+	 * @return internal type name of the probe array
+	 */
+	public String getDataType() {
+		return dataType;
+	}
+
+	/**
+	 * Returns the descriptor of the method which initializes the probe array.
+	 *
+	 * @return descriptor of the init method
+	 */
+	public String getInitMethodDesc() {
+		return "()" + dataFieldDesc;
+	}
+
+	/**
+	 * Parses an option value, ignoring case.
+	 *
+	 * @param value
+	 *            <code>boolean</code>, <code>count</code> or
+	 *            <code>mapped</code>
+	 * @return probe mode for the value
+	 * @throws IllegalArgumentException
+	 *             if the value is not a known mode
+	 */
+	public static ProbeMode parse(final String value) {
+		for (final ProbeMode mode : values()) {
+			if (mode.name().equalsIgnoreCase(value)) {
+				return mode;
+			}
+		}
+		throw new IllegalArgumentException("Unknown probe mode: " + value);
+	}
+
+}
@@ -12,18 +12,36 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
 
 /**
  * {@link ExecutionDataReader} with commands added for runtime remote control.
  */
 public class RemoteControlReader extends ExecutionDataReader {
 
+	/** number of bytes of a compressed block read at once */
+	private static final int CHUNK_SIZE = 0x2000;
+
 	private IRemoteCommandVisitor remoteCommandVisitor;
 
+	private IDeltaInfoVisitor deltaInfoVisitor;
+
+	private ISessionInfoVisitor sessionInfoVisitor;
+
+	private IExecutionDataVisitor executionDataVisitor;
+
+	private boolean compressionRequested;
+
 	/**
 	 * Create a new read based on the given input stream.
 	 *
@@ -42,6 +60,15 @@ public class RemoteControlReader extends ExecutionDataReader {
 		case RemoteControlWriter.BLOCK_CMDDUMP:
 			readDumpCommand();
 			return true;
+		case RemoteControlWriter.BLOCK_CMDDELTADUMP:
+			readDeltaDumpCommand();
+			return true;
+		case RemoteControlWriter.BLOCK_DELTAINFO:
+			readDeltaInfo();
+			return true;
+		case RemoteControlWriter.BLOCK_COMPRESSED:
+			readCompressed();
+			return true;
 		case RemoteControlWriter.BLOCK_CMDOK:
 			return false;
 		default:
@@ -49,8 +76,32 @@ public class RemoteControlReader extends ExecutionDataReader {
 		}
 	}
 
+	@Override
+	public void setSessionInfoVisitor(final ISessionInfoVisitor visitor) {
+		super.setSessionInfoVisitor(visitor);
+		this.sessionInfoVisitor = visitor;
+	}
+
+	@Override
+	public void setExecutionDataVisitor(final IExecutionDataVisitor visitor) {
+		super.setExecutionDataVisitor(visitor);
+		this.executionDataVisitor = visitor;
+	}
+
 	/**
-	 * Sets an listener for agent commands.
+	 * Returns whether a command received so far has requested compressed
+	 * responses.
+	 *
+	 * @return <code>true</code> if the peer supports compressed responses
+	 */
+	public boolean isCompressionRequested() {
+		return compressionRequested;
+	}
+
+	/**
+	 * Sets an listener for agent commands. Delta dump commands are only
+	 * passed to visitors implementing {@link IRemoteDeltaCommandVisitor}, all
+	 * other visitors receive a dump command instead.
 	 *
 	 * @param visitor
 	 *            visitor to retrieve agent commands
@@ -59,13 +110,91 @@ public class RemoteControlReader extends ExecutionDataReader {
 		this.remoteCommandVisitor = visitor;
 	}
 
+	/**
+	 * Sets an listener for the delta info of delta dumps.
+	 *
+	 * @param visitor
+	 *            visitor to retrieve delta infos
+	 */
+	public void setDeltaInfoVisitor(final IDeltaInfoVisitor visitor) {
+		this.deltaInfoVisitor = visitor;
+	}
+
 	private void readDumpCommand() throws IOException {
 		if (remoteCommandVisitor == null) {
 			throw new IOException("No remote command visitor.");
 		}
-		final boolean dump = in.readBoolean();
+		final boolean dump = readFlags() != 0;
 		final boolean reset = in.readBoolean();
 		remoteCommandVisitor.visitDumpCommand(dump, reset);
 	}
 
+	private void readDeltaDumpCommand() throws IOException {
+		if (remoteCommandVisitor == null) {
+			throw new IOException("No remote command visitor.");
+		}
+		final long baseline = in.readLong();
+		final boolean reset = readFlags() != 0;
+		if (remoteCommandVisitor instanceof IRemoteDeltaCommandVisitor) {
+			((IRemoteDeltaCommandVisitor) remoteCommandVisitor)
+					.visitDeltaDumpCommand(baseline, reset);
+		} else {
+			// Answer with a full dump without delta info
+			remoteCommandVisitor.visitDumpCommand(true, reset);
+		}
+	}
+
+	/**
+	 * Reads a boolean value of a command which may carry the compression
+	 * flag and returns the value without the flag.
+	 */
+	private int readFlags() throws IOException {
+		final int flags = in.readByte();
+		if ((flags & RemoteControlWriter.FLAG_COMPRESSION) != 0) {
+			compressionRequested = true;
+		}
+		return flags & ~RemoteControlWriter.FLAG_COMPRESSION;
+	}
+
+	private void readCompressed() throws IOException {
+		final int length = in.readVarInt();
+		if (length < 0) {
+			throw new IOException("Invalid compressed block length.");
+		}
+		// Buffer grows with the data actually received, so a corrupt length
+		// fails with EOFException instead of a huge allocation:
+		final ByteArrayOutputStream buffer = new ByteArrayOutputStream(
+				Math.min(length, CHUNK_SIZE));
+		final byte[] chunk = new byte[Math.min(length, CHUNK_SIZE)];
+		int remaining = length;
+		while (remaining > 0) {
+			final int n = Math.min(remaining, chunk.length);
+			in.readFully(chunk, 0, n);
+			buffer.write(chunk, 0, n);
+			remaining -= n;
+		}
+		final byte[] compressed = buffer.toByteArray();
+		final Inflater inflater = new Inflater();
+		try {
+			final RemoteControlReader reader = new RemoteControlReader(
+					new BufferedInputStream(new InflaterInputStream(
+							new ByteArrayInputStream(compressed), inflater)));
+			reader.setSessionInfoVisitor(sessionInfoVisitor);
+			reader.setExecutionDataVisitor(executionDataVisitor);
+			reader.setDeltaInfoVisitor(deltaInfoVisitor);
+			reader.read();
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private void readDeltaInfo() throws IOException {
+		if (deltaInfoVisitor == null) {
+			throw new IOException("No delta info visitor.");
+		}
+		final long sequence = in.readLong();
+		final boolean full = in.readBoolean();
+		deltaInfoVisitor.visitDeltaInfo(sequence, full);
+	}
+
 }
@@ -12,23 +12,68 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
+import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
 
 /**
  * {@link ExecutionDataWriter} with commands added for runtime remote control.
+ *
+ * Responses can be deflated: a command sent with
+ * {@link #setRequestCompression(boolean)} flags the request with
+ * {@link #FLAG_COMPRESSION} in the <code>dump</code> value of the dump command
+ * or the <code>reset</code> value of the delta dump command. Agents without
+ * compression support only test the <code>dump</code> value for non-zero and
+ * answer uncompressed. A writer with
+ * {@link #setCompression(boolean)} collects all blocks of a response and sends
+ * them as a single compressed block, which is a deflated execution data
+ * stream including its own header, before the command confirmation.
+ *
+ * A writer is not thread safe. Each response, from
+ * {@link #setCompression(boolean)} to {@link #sendCmdOk()}, has to be written
+ * by one thread at a time, otherwise blocks of concurrent responses end up in
+ * the wrong compressed block.
  */
 public class RemoteControlWriter extends ExecutionDataWriter
-		implements IRemoteCommandVisitor {
+		implements IRemoteDeltaCommandVisitor, IDeltaInfoVisitor {
 
 	/** Block identifier to confirm successful command execution. */
 	public static final byte BLOCK_CMDOK = 0x20;
 
+	/** Block identifier for the delta info preceding a delta dump. */
+	public static final byte BLOCK_DELTAINFO = 0x21;
+
+	/** Block identifier for a deflated sequence of blocks. */
+	public static final byte BLOCK_COMPRESSED = 0x22;
+
 	/** Block identifier for dump command */
 	public static final byte BLOCK_CMDDUMP = 0x40;
 
+	/** Block identifier for delta dump command */
+	public static final byte BLOCK_CMDDELTADUMP = 0x41;
+
+	/** Bit in the flag bytes of commands requesting compressed responses. */
+	public static final int FLAG_COMPRESSION = 0x02;
+
+	private boolean requestCompression;
+
+	private boolean compression;
+
+	/** buffer of the current compressed response, null if none started */
+	private ByteArrayOutputStream compressedBuffer;
+
+	private Deflater deflater;
+
+	private DeflaterOutputStream deflaterStream;
+
+	private RemoteControlWriter compressedWriter;
+
 	/**
 	 * Creates a new writer based on the given output stream.
 	 *
@@ -49,14 +94,120 @@ public class RemoteControlWriter extends ExecutionDataWriter
 	 *             in case of problems with the remote connection
 	 */
 	public void sendCmdOk() throws IOException {
+		if (compressedWriter != null) {
+			writeCompressedBlock();
+		}
 		out.writeByte(RemoteControlWriter.BLOCK_CMDOK);
 	}
 
+	/**
+	 * Sets whether the commands sent by this writer ask the peer to compress
+	 * its responses. Peers without compression support ignore the request.
+	 *
+	 * @param requestCompression
+	 *            <code>true</code> to request compressed responses
+	 */
+	public void setRequestCompression(final boolean requestCompression) {
+		this.requestCompression = requestCompression;
+	}
+
+	/**
+	 * Sets whether the blocks of the following responses are deflated. Must
+	 * only be enabled if the peer has requested compression and must not be
+	 * changed within a response.
+	 *
+	 * @param compression
+	 *            <code>true</code> to send compressed responses
+	 * @throws IllegalStateException
+	 *             if changed while blocks of a compressed response are pending
+	 */
+	public void setCompression(final boolean compression) {
+		if (compressedWriter != null && compression != this.compression) {
+			throw new IllegalStateException(
+					"Compression can't be changed within a response.");
+		}
+		this.compression = compression;
+	}
+
+	@Override
+	public void visitSessionInfo(final SessionInfo info) {
+		if (compression) {
+			getCompressedWriter().visitSessionInfo(info);
+		} else {
+			super.visitSessionInfo(info);
+		}
+	}
+
+	@Override
+	public void visitClassExecution(final ExecutionData data) {
+		if (compression) {
+			getCompressedWriter().visitClassExecution(data);
+		} else {
+			super.visitClassExecution(data);
+		}
+	}
+
 	public void visitDumpCommand(final boolean dump, final boolean reset)
 			throws IOException {
 		out.writeByte(RemoteControlWriter.BLOCK_CMDDUMP);
-		out.writeBoolean(dump);
+		// Without dump there is no response to compress:
+		out.writeByte(dump ? 1 | compressionFlag() : 0);
 		out.writeBoolean(reset);
 	}
 
+	public void visitDeltaDumpCommand(final long baseline, final boolean reset)
+			throws IOException {
+		out.writeByte(RemoteControlWriter.BLOCK_CMDDELTADUMP);
+		out.writeLong(baseline);
+		out.writeByte((reset ? 1 : 0) | compressionFlag());
+	}
+
+	public void visitDeltaInfo(final long sequence, final boolean full)
+			throws IOException {
+		if (compression) {
+			getCompressedWriter().visitDeltaInfo(sequence, full);
+			return;
+		}
+		out.writeByte(RemoteControlWriter.BLOCK_DELTAINFO);
+		out.writeLong(sequence);
+		out.writeBoolean(full);
+	}
+
+	private int compressionFlag() {
+		return requestCompression ? FLAG_COMPRESSION : 0;
+	}
+
+	private RemoteControlWriter getCompressedWriter() {
+		if (compressedWriter == null) {
+			compressedBuffer = new ByteArrayOutputStream();
+			deflater = new Deflater();
+			deflaterStream = new DeflaterOutputStream(compressedBuffer,
+					deflater);
+			try {
+				compressedWriter = new RemoteControlWriter(deflaterStream);
+			} catch (final IOException e) {
+				// Must not happen with ByteArrayOutputStream
+				throw new AssertionError(e);
+			}
+		}
+		return compressedWriter;
+	}
+
+	private void writeCompressedBlock() throws IOException {
+		try {
+			compressedWriter.flush();
+			deflaterStream.finish();
+		} finally {
+			deflater.end();
+		}
+		final byte[] compressed = compressedBuffer.toByteArray();
+		compressedWriter = null;
+		compressedBuffer = null;
+		deflaterStream = null;
+		deflater = null;
+		out.writeByte(RemoteControlWriter.BLOCK_COMPRESSED);
+		out.writeVarInt(compressed.length);
+		out.write(compressed);
+	}
+
 }
@@ -12,6 +12,15 @@
  *******************************************************************************/
 package org.jacoco.core.runtime;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import org.jacoco.core.data.ExecutionData;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.IExecutionDataVisitor;
@@ -24,13 +33,52 @@ import org.objectweb.asm.Opcodes;
 /**
  * Container for runtime execution and meta data. All access to the runtime data
  * is thread safe.
+ *
+ * Probe arrays are looked up and created without a global lock, so class
+ * initialization in concurrent threads does not contend. Dumps copy the probe
+ * arrays into a snapshot while holding a lock only against other dumps and
+ * resets, the snapshot is written to the visitors after the lock has been
+ * released.
+ *
+ * For delta dumps the runtime keeps the probes of the most recent delta dumps
+ * as baselines. Unchanged probe arrays are shared between baselines, so each
+ * baseline only costs the memory of the classes changed since its
+ * predecessor.
+ *
+ * In {@link ProbeMode#MAPPED} the instrumented classes write their probes into
+ * byte buffers, which are allocated in a {@link MappedProbeFile} if one has
+ * been set. The execution data of these classes only tracks id, name and
+ * probe count, dumps read the probes from the buffers.
  */
 public class RuntimeData {
 
-	/** store for execution data */
-	protected final ExecutionDataStore store;
+	/** number of delta dump baselines kept for concurrent collectors */
+	private static final int MAX_DELTA_BASELINES = 4;
+
+	/** execution data by class id */
+	private final ConcurrentMap<Long, ExecutionData> entries;
+
+	/** serializes dumps and resets, never acquired by application threads */
+	private final Object collectLock = new Object();
+
+	private volatile long startTimeStamp;
+
+	private ProbeMode probeMode = ProbeMode.BOOLEAN;
 
-	private long startTimeStamp;
+	/** probe buffers of ProbeMode#MAPPED by class id */
+	private final ConcurrentMap<Long, ByteBuffer> buffers;
+
+	/** backing file of the probe buffers or null for heap buffers */
+	private volatile MappedProbeFile probeFile;
+
+	/** probes of recent delta dumps by sequence, guarded by collectLock */
+	private final Map<Long, ExecutionDataStore> deltaBaselines = new LinkedHashMap<Long, ExecutionDataStore>();
+
+	/** most recent entry of deltaBaselines, guarded by collectLock */
+	private ExecutionDataStore latestBaseline;
+
+	/** sequence of the last delta dump, guarded by collectLock */
+	private long deltaSequence;
 
 	private String sessionId;
 
@@ -38,7 +86,8 @@ public class RuntimeData {
 	 * Creates a new runtime.
 	 */
 	public RuntimeData() {
-		store = new ExecutionDataStore();
+		entries = new ConcurrentHashMap<Long, ExecutionData>();
+		buffers = new ConcurrentHashMap<Long, ByteBuffer>();
 		sessionId = "<none>";
 		startTimeStamp = System.currentTimeMillis();
 	}
@@ -57,6 +106,54 @@ public class RuntimeData {
 		sessionId = id;
 	}
 
+	/**
+	 * Sets the type of probe arrays created for classes. Must be set before
+	 * the first instrumented class is initialized.
+	 *
+	 * @param probeMode
+	 *            probe mode of the instrumented classes
+	 */
+	public void setProbeMode(final ProbeMode probeMode) {
+		this.probeMode = probeMode;
+	}
+
+	/**
+	 * Returns the type of probe arrays created for classes.
+	 *
+	 * @return probe mode of the instrumented classes
+	 */
+	public ProbeMode getProbeMode() {
+		return probeMode;
+	}
+
+	/**
+	 * Sets the file in which the probes are allocated in
+	 * {@link ProbeMode#MAPPED}. Must be set before the first instrumented
+	 * class is initialized, without a file the probes live on the heap.
+	 *
+	 * @param probeFile
+	 *            opened probe file
+	 */
+	public void setProbeFile(final MappedProbeFile probeFile) {
+		this.probeFile = probeFile;
+	}
+
+	/**
+	 * Writes the probes of {@link ProbeMode#MAPPED} back to the probe file
+	 * and records the current session in its header. Does nothing if no probe
+	 * file has been set.
+	 *
+	 * @throws IOException
+	 *             if the probe file can't be written
+	 */
+	public void sync() throws IOException {
+		final MappedProbeFile file = probeFile;
+		if (file != null) {
+			file.sync(new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis()));
+		}
+	}
+
 	/**
 	 * Get the current a session identifier for this runtime.
 	 *
@@ -81,14 +178,126 @@ public class RuntimeData {
 	 */
 	public final void collect(final IExecutionDataVisitor executionDataVisitor,
 			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset) {
-		synchronized (store) {
-			final SessionInfo info = new SessionInfo(sessionId, startTimeStamp,
+		final SessionInfo info;
+		final ExecutionDataStore snapshot = new ExecutionDataStore();
+		synchronized (collectLock) {
+			info = new SessionInfo(sessionId, startTimeStamp,
 					System.currentTimeMillis());
-			sessionInfoVisitor.visitSessionInfo(info);
-			store.accept(executionDataVisitor);
+			for (final ExecutionData data : entries.values()) {
+				snapshot.put(copy(data, reset));
+			}
 			if (reset) {
-				reset();
+				startTimeStamp = System.currentTimeMillis();
+				clearDeltaBaselines();
+			}
+		}
+		sessionInfoVisitor.visitSessionInfo(info);
+		snapshot.accept(executionDataVisitor);
+	}
+
+	/**
+	 * Collects the execution data of all classes which have changed since the
+	 * delta dump with the given sequence number and writes it to the given
+	 * visitors. If the baseline is not known (any more) all execution data is
+	 * written and the delta info is flagged as full. The delta info is always
+	 * reported first.
+	 *
+	 * After a reset the probes of all classes are considered to be cleared, so
+	 * the next delta dump only contains classes executed after the reset.
+	 *
+	 * @param baseline
+	 *            sequence number of a previous delta dump or 0
+	 * @param deltaInfoVisitor
+	 *            handler to write the delta info to
+	 * @param executionDataVisitor
+	 *            handler to write coverage data to
+	 * @param sessionInfoVisitor
+	 *            handler to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared
+	 * @throws IOException
+	 *             in case of problems with the delta info visitor
+	 */
+	public final void collectDelta(final long baseline,
+			final IDeltaInfoVisitor deltaInfoVisitor,
+			final IExecutionDataVisitor executionDataVisitor,
+			final ISessionInfoVisitor sessionInfoVisitor, final boolean reset)
+			throws IOException {
+		collectDelta(new long[] { baseline },
+				new IDeltaInfoVisitor[] { deltaInfoVisitor },
+				new IExecutionDataVisitor[] { executionDataVisitor },
+				new ISessionInfoVisitor[] { sessionInfoVisitor }, reset);
+	}
+
+	/**
+	 * Collects delta dumps against several baselines from a single snapshot.
+	 * Only one new sequence number is registered, which all responses report,
+	 * so the baselines of concurrent collectors are not evicted by the
+	 * collectors of the same round. For each baseline the delta info, the
+	 * session info and the changed classes are written to the visitors at the
+	 * same index, see
+	 * {@link #collectDelta(long, IDeltaInfoVisitor, IExecutionDataVisitor, ISessionInfoVisitor, boolean)}.
+	 *
+	 * @param baselines
+	 *            sequence numbers of previous delta dumps or 0
+	 * @param deltaInfoVisitors
+	 *            handlers to write the delta infos to
+	 * @param executionDataVisitors
+	 *            handlers to write coverage data to
+	 * @param sessionInfoVisitors
+	 *            handlers to write session information to
+	 * @param reset
+	 *            if <code>true</code> the current coverage information is also
+	 *            cleared
+	 * @throws IOException
+	 *             in case of problems with a delta info visitor
+	 */
+	public final void collectDelta(final long[] baselines,
+			final IDeltaInfoVisitor[] deltaInfoVisitors,
+			final IExecutionDataVisitor[] executionDataVisitors,
+			final ISessionInfoVisitor[] sessionInfoVisitors, final boolean reset)
+			throws IOException {
+		final SessionInfo info;
+		final ExecutionDataStore snapshot = new ExecutionDataStore();
+		final ExecutionDataStore[] bases = new ExecutionDataStore[baselines
+				.length];
+		final long sequence;
+		synchronized (collectLock) {
+			info = new SessionInfo(sessionId, startTimeStamp,
+					System.currentTimeMillis());
+			for (int i = 0; i < baselines.length; i++) {
+				bases[i] = deltaBaselines.get(Long.valueOf(baselines[i]));
+			}
+			final ExecutionDataStore next = new ExecutionDataStore();
+			for (final ExecutionData data : entries.values()) {
+				final ExecutionData copy = copy(data, reset);
+				snapshot.put(copy);
+				if (!reset && copy.hasHits()) {
+					next.put(shareBaseline(copy));
+				}
+			}
+			if (reset) {
+				startTimeStamp = System.currentTimeMillis();
+				clearDeltaBaselines();
+			}
+			sequence = ++deltaSequence;
+			addDeltaBaseline(sequence, next);
+		}
+		// Baselines are never modified, so the deltas are calculated
+		// without holding the lock:
+		for (int i = 0; i < baselines.length; i++) {
+			final ExecutionDataStore base = bases[i];
+			final boolean full = base == null;
+			final ExecutionDataStore delta = new ExecutionDataStore();
+			for (final ExecutionData data : snapshot.getContents()) {
+				if (full || !sameProbes(base.get(data.getId()), data)) {
+					delta.put(data);
+				}
 			}
+			deltaInfoVisitors[i].visitDeltaInfo(sequence, full);
+			sessionInfoVisitors[i].visitSessionInfo(info);
+			delta.accept(executionDataVisitors[i]);
 		}
 	}
 
@@ -96,16 +305,102 @@ public class RuntimeData {
 	 * Resets all coverage information.
 	 */
 	public final void reset() {
-		synchronized (store) {
-			store.reset();
+		synchronized (collectLock) {
+			for (final ExecutionData data : entries.values()) {
+				resetProbes(data);
+			}
 			startTimeStamp = System.currentTimeMillis();
+			clearDeltaBaselines();
+		}
+	}
+
+	private void addDeltaBaseline(final long sequence,
+			final ExecutionDataStore baseline) {
+		deltaBaselines.put(Long.valueOf(sequence), baseline);
+		latestBaseline = baseline;
+		final Iterator<Long> i = deltaBaselines.keySet().iterator();
+		while (deltaBaselines.size() > MAX_DELTA_BASELINES) {
+			i.next();
+			i.remove();
+		}
+	}
+
+	private void clearDeltaBaselines() {
+		deltaBaselines.clear();
+		latestBaseline = null;
+	}
+
+	/**
+	 * Returns the instance of the latest baseline if it has the same probes,
+	 * otherwise the given copy.
+	 */
+	private ExecutionData shareBaseline(final ExecutionData copy) {
+		if (latestBaseline != null) {
+			final ExecutionData previous = latestBaseline.get(copy.getId());
+			if (sameProbes(previous, copy)) {
+				return previous;
+			}
 		}
+		return copy;
+	}
+
+	/**
+	 * Compares the probes of a baseline entry, where <code>null</code> stands
+	 * for no hits, with the probes of a copy.
+	 */
+	private static boolean sameProbes(final ExecutionData previous,
+			final ExecutionData copy) {
+		if (previous == null) {
+			return !copy.hasHits();
+		}
+		final long[] counts = copy.getCounts();
+		if (counts != null || previous.getCounts() != null) {
+			return Arrays.equals(previous.getCounts(), counts);
+		}
+		return Arrays.equals(previous.getProbes(), copy.getProbes());
+	}
+
+	/**
+	 * Copies the current probes of the given execution data. With
+	 * <code>reset</code> each probe array is cleared right after it has been
+	 * copied, probes hit in between these two steps are lost.
+	 */
+	private ExecutionData copy(final ExecutionData data, final boolean reset) {
+		final ExecutionData copy;
+		final ByteBuffer buffer = buffers.get(Long.valueOf(data.getId()));
+		if (buffer != null) {
+			final boolean[] probes = new boolean[buffer.capacity()];
+			for (int i = 0; i < probes.length; i++) {
+				probes[i] = buffer.get(i) != 0;
+			}
+			copy = new ExecutionData(data.getId(), data.getName(), probes);
+		} else if (data.getCounts() == null) {
+			copy = new ExecutionData(data.getId(), data.getName(),
+					data.getProbes().clone());
+		} else {
+			copy = new ExecutionData(data.getId(), data.getName(),
+					data.getCounts().clone());
+		}
+		if (reset) {
+			resetProbes(data);
+		}
+		return copy;
+	}
+
+	private void resetProbes(final ExecutionData data) {
+		final ByteBuffer buffer = buffers.get(Long.valueOf(data.getId()));
+		if (buffer != null) {
+			for (int i = 0; i < buffer.capacity(); i++) {
+				buffer.put(i, (byte) 0);
+			}
+		}
+		data.reset();
 	}
 
 	/**
 	 * Returns the coverage data for the class with the given identifier. If
 	 * there is no data available under the given id a new entry is created.
-	 * This is a synchronized access to the underlying store.
+	 * This method is thread safe and does not block on concurrent dumps.
 	 *
 	 * @param id
 	 *            class identifier
@@ -117,8 +412,53 @@ public class RuntimeData {
 	 */
 	public ExecutionData getExecutionData(final Long id, final String name,
 			final int probecount) {
-		synchronized (store) {
-			return store.get(id, name, probecount);
+		ExecutionData data = entries.get(id);
+		if (data == null && probeMode == ProbeMode.MAPPED) {
+			data = createMapped(id, name, probecount);
+		}
+		if (data == null) {
+			final ExecutionData created = probeMode == ProbeMode.COUNT
+					? new ExecutionData(id.longValue(), name,
+							new long[probecount])
+					: new ExecutionData(id.longValue(), name, probecount);
+			data = entries.putIfAbsent(id, created);
+			if (data == null) {
+				return created;
+			}
+		}
+		data.assertCompatibility(id.longValue(), name, probecount);
+		return data;
+	}
+
+	/**
+	 * Allocates the probe buffer for a class in {@link ProbeMode#MAPPED}. The
+	 * buffer is registered before the execution data, so dumps find a buffer
+	 * for every mapped entry.
+	 */
+	private ExecutionData createMapped(final Long id, final String name,
+			final int probecount) {
+		synchronized (buffers) {
+			ExecutionData data = entries.get(id);
+			if (data == null) {
+				buffers.put(id, allocate(id.longValue(), name, probecount));
+				data = new ExecutionData(id.longValue(), name, probecount);
+				entries.put(id, data);
+			}
+			return data;
+		}
+	}
+
+	private ByteBuffer allocate(final long id, final String name,
+			final int probecount) {
+		final MappedProbeFile file = probeFile;
+		if (file == null) {
+			return ByteBuffer.allocate(probecount);
+		}
+		try {
+			return file.allocate(id, name, probecount);
+		} catch (final IOException e) {
+			throw new IllegalStateException(
+					"Can't allocate probes in probe file.", e);
 		}
 	}
 
@@ -136,7 +476,9 @@ public class RuntimeData {
 	 * Return value:
 	 *
 	 * <ul>
-	 * <li>args[0]: probe array (<code>boolean[]</code>)
+	 * <li>args[0]: probe array (<code>boolean[]</code>, <code>long[]</code>
+	 * in {@link ProbeMode#COUNT}, {@link ByteBuffer} in
+	 * {@link ProbeMode#MAPPED})
 	 * </ul>
 	 *
 	 * @param args
@@ -146,7 +488,14 @@ public class RuntimeData {
 		final Long classid = (Long) args[0];
 		final String name = (String) args[1];
 		final int probecount = ((Integer) args[2]).intValue();
-		args[0] = getExecutionData(classid, name, probecount).getProbes();
+		final ExecutionData data = getExecutionData(classid, name, probecount);
+		final ByteBuffer buffer = buffers.get(classid);
+		if (buffer != null) {
+			args[0] = buffer;
+		} else {
+			args[0] = data.getCounts() == null ? data.getProbes()
+					: data.getCounts();
+		}
 	}
 
 	/**
@@ -227,6 +576,31 @@ public class RuntimeData {
 	public static void generateAccessCall(final long classid,
 			final String classname, final int probecount,
 			final MethodVisitor mv) {
+		generateAccessCall(classid, classname, probecount, ProbeMode.BOOLEAN,
+				mv);
+	}
+
+	/**
+	 * Generates the code that calls a {@link RuntimeData} instance through the
+	 * JRE API method {@link Object#equals(Object)}. The code pops a
+	 * {@link Object} instance from the stack and pushes the probe array of the
+	 * type given by the probe mode on the operand stack. The generated code
+	 * requires a stack size of 6.
+	 *
+	 * @param classid
+	 *            class identifier
+	 * @param classname
+	 *            VM class name
+	 * @param probecount
+	 *            probe count for this class
+	 * @param probeMode
+	 *            type of the probe array
+	 * @param mv
+	 *            visitor to emit generated code
+	 */
+	public static void generateAccessCall(final long classid,
+			final String classname, final int probecount,
+			final ProbeMode probeMode, final MethodVisitor mv) {
 		// stack[0]: Ljava/lang/Object;
 
 		generateArgumentArray(classid, classname, probecount, mv);
@@ -251,7 +625,7 @@ public class RuntimeData {
 
 		// stack[0]: [Z
 
-		mv.visitTypeInsn(Opcodes.CHECKCAST, InstrSupport.DATAFIELD_DESC);
+		mv.visitTypeInsn(Opcodes.CHECKCAST, probeMode.getDataType());
 	}
 
 }
@@ -16,12 +16,26 @@ import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.net.InetAddress;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.IDeltaInfoVisitor;
 import org.jacoco.core.runtime.RemoteControlReader;
 import org.jacoco.core.runtime.RemoteControlWriter;
 
 /**
  * A client for remote execution data dumps.
+ *
+ * For periodic collection {@link #dumpDelta(InetAddress, int)} only transfers
+ * the classes changed since the previous delta dump and rebuilds the complete
+ * execution data locally. The state for delta dumps is kept per client
+ * instance, so a separate instance has to be used for every end-point.
  */
 public class ExecDumpClient {
 
@@ -29,17 +43,26 @@ public class ExecDumpClient {
 	private boolean reset;
 	private int retryCount;
 	private long retryDelay;
+	private boolean compression;
+
+	/** execution data of the agent as of the last delta dump */
+	private ExecutionDataStore deltaState;
+	/** sequence of the last delta dump, 0 if there is none */
+	private long deltaBaseline;
 
 	/**
 	 * New instance with the defaults <code>dump==true</code>,
-	 * <code>reset==false</code>, <code>retryCount==0</code> and
-	 * <code>retryDelay=1000</code>.
+	 * <code>reset==false</code>, <code>retryCount==0</code>,
+	 * <code>retryDelay=1000</code> and <code>compression==true</code>.
 	 */
 	public ExecDumpClient() {
 		this.dump = true;
 		this.reset = false;
 		this.retryCount = 0;
 		this.setRetryDelay(1000);
+		this.compression = true;
+		this.deltaState = new ExecutionDataStore();
+		this.deltaBaseline = 0;
 	}
 
 	/**
@@ -83,6 +106,17 @@ public class ExecDumpClient {
 		this.retryDelay = retryDelay;
 	}
 
+	/**
+	 * Specifies whether the agent should compress its response. Agents without
+	 * compression support ignore the request.
+	 *
+	 * @param compression
+	 *            <code>true</code> if a compressed response should be requested
+	 */
+	public void setCompression(final boolean compression) {
+		this.compression = compression;
+	}
+
 	/**
 	 * Requests a dump from the given end-point.
 	 *
@@ -112,6 +146,11 @@ public class ExecDumpClient {
 	 */
 	public ExecFileLoader dump(final InetAddress address, final int port)
 			throws IOException {
+		return dump(address, port, dump);
+	}
+
+	private ExecFileLoader dump(final InetAddress address, final int port,
+			final boolean dump) throws IOException {
 		final ExecFileLoader loader = new ExecFileLoader();
 		final Socket socket = tryConnect(address, port);
 		try {
@@ -123,6 +162,7 @@ public class ExecDumpClient {
 			remoteReader
 					.setExecutionDataVisitor(loader.getExecutionDataStore());
 
+			remoteWriter.setRequestCompression(compression);
 			remoteWriter.visitDumpCommand(dump, reset);
 
 			if (!remoteReader.read()) {
@@ -135,6 +175,172 @@ public class ExecDumpClient {
 		return loader;
 	}
 
+	/**
+	 * Requests a delta dump from the given end-point.
+	 *
+	 * @param address
+	 *            IP-Address to connect to
+	 * @param port
+	 *            port to connect to
+	 * @return container for the complete dumped data
+	 * @throws IOException
+	 *             in case the dump can not be requested
+	 * @see #dumpDelta(InetAddress, int)
+	 */
+	public ExecFileLoader dumpDelta(final String address, final int port)
+			throws IOException {
+		return dumpDelta(InetAddress.getByName(address), port);
+	}
+
+	/**
+	 * Requests a delta dump from the given end-point. Only the classes changed
+	 * since the last successful delta dump of this client are transferred,
+	 * the returned container holds the complete execution data like a regular
+	 * dump. The first call and calls after the end-point has lost the baseline
+	 * (e.g. after a reset by another client or a restart) transfer all data.
+	 * The dump setting is ignored, the reset setting is applied.
+	 *
+	 * Agents without delta support close the connection without any response
+	 * to the delta dump command. In this case a regular dump is requested on a
+	 * new connection and replaces the complete delta state, so each call to
+	 * such an end-point takes two connections.
+	 *
+	 * @param address
+	 *            host name or IP-Address to connect to
+	 * @param port
+	 *            port to connect to
+	 * @return container for the complete dumped data
+	 * @throws IOException
+	 *             in case the dump can not be requested
+	 */
+	public ExecFileLoader dumpDelta(final InetAddress address, final int port)
+			throws IOException {
+		final ExecFileLoader loader = new ExecFileLoader();
+		final DeltaReceiver receiver = new DeltaReceiver(
+				loader.getSessionInfoStore());
+		boolean unsupported = false;
+		final Socket socket = tryConnect(address, port);
+		try {
+			final RemoteControlWriter remoteWriter = new RemoteControlWriter(
+					socket.getOutputStream());
+			final RemoteControlReader remoteReader = new RemoteControlReader(
+					socket.getInputStream());
+			remoteReader.setSessionInfoVisitor(receiver);
+			remoteReader.setExecutionDataVisitor(receiver);
+			remoteReader.setDeltaInfoVisitor(receiver);
+
+			remoteWriter.setRequestCompression(compression);
+			remoteWriter.visitDeltaDumpCommand(deltaBaseline, reset);
+
+			if (!remoteReader.read()) {
+				if (receiver.responded) {
+					throw new IOException("Socket closed unexpectedly.");
+				}
+				unsupported = true;
+			}
+		} catch (final IOException e) {
+			// Agents without delta support may also reset the connection
+			if (receiver.responded) {
+				throw e;
+			}
+			unsupported = true;
+		} finally {
+			socket.close();
+		}
+		if (unsupported) {
+			return dumpFull(address, port);
+		}
+		// Only apply a completely received response, a failed dump is
+		// retried with the previous baseline.
+		receiver.apply(loader.getExecutionDataStore());
+		return loader;
+	}
+
+	/**
+	 * Requests a regular dump from an agent without delta support and replaces
+	 * the delta state with it.
+	 */
+	private ExecFileLoader dumpFull(final InetAddress address, final int port)
+			throws IOException {
+		final ExecFileLoader loader = dump(address, port, true);
+		deltaState = new ExecutionDataStore();
+		if (!reset) {
+			for (final ExecutionData data : loader.getExecutionDataStore()
+					.getContents()) {
+				deltaState.put(copy(data));
+			}
+		}
+		deltaBaseline = 0;
+		return loader;
+	}
+
+	/**
+	 * Collects a delta response and applies it to the delta state once the
+	 * response is complete.
+	 */
+	private class DeltaReceiver implements IDeltaInfoVisitor,
+			IExecutionDataVisitor, ISessionInfoVisitor {
+
+		private final SessionInfoStore sessionInfos;
+		private final List<ExecutionData> changed = new ArrayList<ExecutionData>();
+		private long sequence;
+		// Without delta info the end-point has answered with a full dump
+		private boolean full = true;
+		// Whether any block of the response has been received
+		private boolean responded;
+
+		DeltaReceiver(final SessionInfoStore sessionInfos) {
+			this.sessionInfos = sessionInfos;
+		}
+
+		public void visitDeltaInfo(final long sequence, final boolean full) {
+			this.sequence = sequence;
+			this.full = full;
+			responded = true;
+		}
+
+		public void visitSessionInfo(final SessionInfo info) {
+			sessionInfos.visitSessionInfo(info);
+			responded = true;
+		}
+
+		public void visitClassExecution(final ExecutionData data) {
+			changed.add(data);
+			responded = true;
+		}
+
+		void apply(final ExecutionDataStore target) throws IOException {
+			if (full) {
+				deltaState = new ExecutionDataStore();
+			}
+			for (final ExecutionData data : changed) {
+				final ExecutionData previous = deltaState.get(data.getId());
+				if (previous != null) {
+					// replace the outdated probes:
+					previous.reset();
+				}
+				deltaState.put(data);
+			}
+			for (final ExecutionData data : deltaState.getContents()) {
+				target.put(copy(data));
+			}
+			if (reset) {
+				deltaState = new ExecutionDataStore();
+			}
+			deltaBaseline = sequence;
+		}
+
+	}
+
+	private static ExecutionData copy(final ExecutionData data) {
+		final long[] counts = data.getCounts();
+		if (counts == null) {
+			return new ExecutionData(data.getId(), data.getName(),
+					data.getProbes().clone());
+		}
+		return new ExecutionData(data.getId(), data.getName(), counts.clone());
+	}
+
 	private Socket tryConnect(final InetAddress address, final int port)
 			throws IOException {
 		int count = 0;
@@ -25,10 +25,14 @@ import org.jacoco.core.data.ExecutionDataReader;
 import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.data.ExecutionDataWriter;
 import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.MappedProbeFile;
 
 /**
  * Convenience utility for loading *.exec files into a
- * {@link ExecutionDataStore} and a {@link SessionInfoStore}.
+ * {@link ExecutionDataStore} and a {@link SessionInfoStore}. Probe files
+ * written by the agent in mapped probe mode (see {@link MappedProbeFile}) are
+ * loaded as well, so they can be converted to *.exec files with
+ * {@link #save(File, boolean)}.
  */
 public class ExecFileLoader {
 
@@ -61,7 +65,7 @@ public class ExecFileLoader {
 	}
 
 	/**
-	 * Reads all data from given input stream.
+	 * Reads all data from given *.exec or probe file.
 	 *
 	 * @param file
 	 *            file to read data from
@@ -69,6 +73,10 @@ public class ExecFileLoader {
 	 *             in case of problems while reading from the stream
 	 */
 	public void load(final File file) throws IOException {
+		if (isProbeFile(file)) {
+			MappedProbeFile.read(file, executionData, sessionInfos);
+			return;
+		}
 		final InputStream stream = new FileInputStream(file);
 		try {
 			load(stream);
@@ -77,6 +85,22 @@ public class ExecFileLoader {
 		}
 	}
 
+	private static boolean isProbeFile(final File file) throws IOException {
+		final byte[] head = new byte[4];
+		final InputStream stream = new FileInputStream(file);
+		try {
+			int pos = 0;
+			int n;
+			while (pos < head.length
+					&& (n = stream.read(head, pos, head.length - pos)) != -1) {
+				pos += n;
+			}
+			return pos == head.length && MappedProbeFile.isProbeFile(head);
+		} finally {
+			stream.close();
+		}
+	}
+
 	/**
 	 * Saves the current content into the given output stream.
 	 *
@@ -55,7 +55,8 @@ public final class ExecutionDataClient {
 		reader.setSessionInfoVisitor(localWriter);
 		reader.setExecutionDataVisitor(localWriter);
 
-		// Send a dump command and read the response:
+		// Send a dump command and read the (compressed) response:
+		writer.setRequestCompression(true);
 		writer.visitDumpCommand(true, false);
 		if (!reader.read()) {
 			throw new IOException("Socket closed unexpectedly.");
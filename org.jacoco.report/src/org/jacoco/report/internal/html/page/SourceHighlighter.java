@@ -15,15 +15,13 @@ package org.jacoco.report.internal.html.page;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.util.List;
 import java.util.Locale;
 
-import org.jacoco.core.analysis.CoverageBuilder;
 import org.jacoco.core.analysis.ICounter;
 import org.jacoco.core.analysis.ILine;
 import org.jacoco.core.analysis.ISourceNode;
 import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
-import org.jacoco.core.internal.diff.ClassInfo;
+import org.jacoco.core.internal.diff.DiffLines;
 import org.jacoco.report.internal.html.HTMLElement;
 import org.jacoco.report.internal.html.resources.Styles;
 
@@ -67,63 +65,37 @@ final class SourceHighlighter {
     public void render(final HTMLElement parent, final ISourceNode source, final Reader contents) throws IOException {
         final HTMLElement pre = parent.pre(Styles.SOURCE + " lang-" + lang + " linenums");
 
-        String classPath = ((SourceFileCoverageImpl) source).getPackageName() + "." + source.getName().replaceAll(".java", "");
-        classPath = classPath.replaceAll("/", ".");
+        // 增量覆盖时改动的行随源文件节点一起生成，全量覆盖时为null
+        final DiffLines diffLines = source instanceof SourceFileCoverageImpl ? ((SourceFileCoverageImpl) source).getDiffLines() : null;
 
         final BufferedReader lineBuffer = new BufferedReader(contents);
         String line;
         int nr = 0;
         while ((line = lineBuffer.readLine()) != null) {
             nr++;
-            renderCodeLine(pre, line, source.getLine(nr), nr, classPath);
+            renderCodeLine(pre, line, source.getLine(nr), source.getLineHits(nr), nr, diffLines);
         }
     }
 
-    private void renderCodeLine(final HTMLElement pre, final String linesrc, final ILine line, final int lineNr, final String classPath) throws IOException {
-        if (CoverageBuilder.classInfos == null || CoverageBuilder.classInfos.isEmpty()) {
-            highlight(pre, line, lineNr).text(linesrc);
-            pre.text("\n");
+    private void renderCodeLine(final HTMLElement pre, final String linesrc, final ILine line, final long hits, final int lineNr, final DiffLines diffLines) throws IOException {
+        if (diffLines == null) {
+            highlight(pre, line, hits, lineNr).text(linesrc);
+        } else if (diffLines.contains(lineNr)) {
+            //	新增或修改的行
+            highlight(pre, line, hits, lineNr).text("+ " + linesrc);
         } else {
-            //	增量覆盖
-            boolean existFlag = true;
-            for (ClassInfo classInfo : CoverageBuilder.classInfos) {
-                String tClassPath = classInfo.getPackages() + "." + classInfo.getClassName();
-                if (classPath.equals(tClassPath)) {
-                    //	新增的类
-                    if (classInfo.getType().equals("ADD")) {
-                        highlight(pre, line, lineNr).text("+ " + linesrc);
-                        pre.text("\n");
-                    } else {
-                        //	修改的类
-                        boolean flag = false;
-                        List<int[]> addLines = classInfo.getAddLines();
-                        for (int[] ints : addLines) {
-                            if (ints[0] <= lineNr && lineNr <= ints[1]) {
-                                flag = true;
-                                break;
-                            }
-                        }
-                        if (flag) {
-                            highlight(pre, line, lineNr).text("+ " + linesrc);
-                            pre.text("\n");
-                        } else {
-                            highlight(pre, line, lineNr).text(" " + linesrc);
-                            pre.text("\n");
-                        }
-                    }
-                    existFlag = false;
-                    break;
-                }
-            }
-            if (existFlag) {
-                highlight(pre, line, lineNr).text(" " + linesrc);
-                pre.text("\n");
-            }
+            highlight(pre, line, hits, lineNr).text(" " + linesrc);
         }
+        pre.text("\n");
     }
 
     HTMLElement highlight(final HTMLElement pre, final ILine line,
                           final int lineNr) throws IOException {
+        return highlight(pre, line, -1, lineNr);
+    }
+
+    HTMLElement highlight(final HTMLElement pre, final ILine line,
+                          final long hits, final int lineNr) throws IOException {
         final String style;
         switch (line.getStatus()) {
             case ICounter.NOT_COVERED:
@@ -144,15 +116,19 @@ final class SourceHighlighter {
         switch (branches.getStatus()) {
             case ICounter.NOT_COVERED:
                 return span(pre, lineId, style, Styles.BRANCH_NOT_COVERED,
-                        "All %2$d branches missed.", branches);
+                        "All %2$d branches missed.", branches, hits);
             case ICounter.FULLY_COVERED:
                 return span(pre, lineId, style, Styles.BRANCH_FULLY_COVERED,
-                        "All %2$d branches covered.", branches);
+                        "All %2$d branches covered.", branches, hits);
             case ICounter.PARTLY_COVERED:
                 return span(pre, lineId, style, Styles.BRANCH_PARTLY_COVERED,
-                        "%1$d of %2$d branches missed.", branches);
+                        "%1$d of %2$d branches missed.", branches, hits);
             default:
-                return pre.span(style, lineId);
+                final HTMLElement span = pre.span(style, lineId);
+                if (hits != -1) {
+                    span.attr("title", hitsTitle(hits));
+                }
+                return span;
         }
     }
 
@@ -161,12 +137,21 @@ final class SourceHighlighter {
                              final String style1,
                              final String style2,
                              final String title,
-                             final ICounter branches) throws IOException {
+                             final ICounter branches,
+                             final long hits) throws IOException {
         final HTMLElement span = parent.span(style1 + " " + style2, id);
         final Integer missed = Integer.valueOf(branches.getMissedCount());
         final Integer total = Integer.valueOf(branches.getTotalCount());
-        span.attr("title", String.format(locale, title, missed, total));
+        String text = String.format(locale, title, missed, total);
+        if (hits != -1) {
+            text += " " + hitsTitle(hits);
+        }
+        span.attr("title", text);
         return span;
     }
 
+    private String hitsTitle(final long hits) {
+        return String.format(locale, "Executed %d times.", Long.valueOf(hits));
+    }
+
 }
@@ -141,6 +141,10 @@ public class ReportElement extends XMLElement {
 		if (line != -1) {
 			element.attr("line", line);
 		}
+		final long hits = coverage.getHits();
+		if (hits != -1) {
+			element.attr("hits", hits);
+		}
 		return element;
 	}
 
@@ -169,10 +173,31 @@ public class ReportElement extends XMLElement {
 	 *             in case of problems with the underlying output
 	 */
 	public void line(final int nr, final ILine line) throws IOException {
+		line(nr, line, -1);
+	}
+
+	/**
+	 * Creates a 'line' element with an optional hit count.
+	 *
+	 * @param nr
+	 *            line number
+	 * @param line
+	 *            line object to write out
+	 * @param hits
+	 *            number of executions of the line or -1 if unknown
+	 *
+	 * @throws IOException
+	 *             in case of problems with the underlying output
+	 */
+	public void line(final int nr, final ILine line, final long hits)
+			throws IOException {
 		final ReportElement element = element("line");
 		element.attr("nr", nr);
 		counterAttributes(element, "mi", "ci", line.getInstructionCounter());
 		counterAttributes(element, "mb", "cb", line.getBranchCounter());
+		if (hits != -1) {
+			element.attr("hits", hits);
+		}
 	}
 
 	/**
@@ -108,7 +108,7 @@ public final class XMLCoverageWriter {
 		for (int nr = source.getFirstLine(); nr <= last; nr++) {
 			final ILine line = source.getLine(nr);
 			if (line.getStatus() != ICounter.EMPTY) {
-				parent.line(nr, line);
+				parent.line(nr, line, source.getLineHits(nr));
 			}
 		}
 	}